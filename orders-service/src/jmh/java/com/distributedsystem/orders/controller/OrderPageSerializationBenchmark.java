@@ -0,0 +1,74 @@
+package com.distributedsystem.orders.controller;
+
+import com.distributedsystem.orders.dto.OrderDTO;
+import com.distributedsystem.orders.model.OrderFixtures;
+import com.distributedsystem.orders.service.OrderMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Jackson serialization of the {@code GET /api/orders} body, an
+ * {@code ApiResponse<Page<OrderDTO>>}, with an ObjectMapper configured the way
+ * Spring Boot configures the MVC one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderPageSerializationBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    @Param({"3"})
+    private int itemsPerOrder;
+
+    private ObjectMapper objectMapper;
+
+    private OrderController.ApiResponse<Page<OrderDTO>> response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        OrderMapper mapper = new OrderMapper();
+        List<OrderDTO> orders = LongStream.rangeClosed(1, pageSize)
+                .mapToObj(id -> mapper.toDTO(OrderFixtures.order(id, itemsPerOrder)))
+                .toList();
+        PageRequest pageable = PageRequest.of(0, pageSize, Sort.by(Sort.Direction.DESC, "createdAt"));
+
+        response = OrderController.ApiResponse.<Page<OrderDTO>>builder()
+                .success(true)
+                .data(new PageImpl<>(orders, pageable, 10_000))
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
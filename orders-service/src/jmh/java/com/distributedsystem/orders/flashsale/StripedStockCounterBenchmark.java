@@ -0,0 +1,51 @@
+package com.distributedsystem.orders.flashsale;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many threads reserving one unit of the same flash-sale product. With
+ * {@code initialStock=0} every call is a sold-out rejection, so throughput is
+ * rejections per microsecond; {@code stripes=1} is a single CAS counter for
+ * comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class StripedStockCounterBenchmark {
+
+    @Param({"1", "16"})
+    private int stripes;
+
+    @Param({"0", "1000000000000"})
+    private long initialStock;
+
+    private StripedStockCounter counter;
+
+    @Setup
+    public void setUp() {
+        counter = new StripedStockCounter(stripes);
+        counter.reset(initialStock);
+    }
+
+    @Benchmark
+    public boolean reserve() {
+        return counter.tryReserve(1);
+    }
+}
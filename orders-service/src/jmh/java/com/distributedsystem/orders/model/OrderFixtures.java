@@ -0,0 +1,47 @@
+package com.distributedsystem.orders.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Orders shaped like the ones the service stores, for the benchmarks.
+ */
+public final class OrderFixtures {
+
+    private OrderFixtures() {
+    }
+
+    public static Order order(long id, int itemCount) {
+        Order order = Order.builder()
+                .id(id)
+                .userId("user-" + (id % 97))
+                .userEmail("user" + (id % 97) + "@example.com")
+                .status(OrderStatus.PAGADO)
+                .notes("Entregar en portería")
+                .paymentId("pay-" + id)
+                .createdAt(LocalDateTime.of(2024, 5, 14, 10, 30).plusMinutes(id))
+                .updatedAt(LocalDateTime.of(2024, 5, 14, 10, 45).plusMinutes(id))
+                .build();
+
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            OrderItem item = OrderItem.builder()
+                    .id(id * 1000 + i)
+                    .order(order)
+                    .productId((long) (i % 40) + 1)
+                    .productSku("SKU-" + (1000 + i))
+                    .productName("Producto de prueba " + i)
+                    .quantity(1 + i % 3)
+                    .unitPrice(new BigDecimal("19.99").add(BigDecimal.valueOf(i, 2)))
+                    .createdAt(order.getCreatedAt())
+                    .build();
+            item.calculateSubtotal();
+            items.add(item);
+        }
+        order.setItems(items);
+        order.calculateTotalAmount();
+        return order;
+    }
+}
@@ -0,0 +1,73 @@
+package com.distributedsystem.orders.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token verification: a full signature check ({@link JwtValidator#validateToken})
+ * and a {@link JwtValidator#parseToken} that hits the verified-token cache, which
+ * is what a client polling with the same token costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtValidatorBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-that-is-at-least-256-bits-long";
+
+    private JwtValidator validator;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        validator = new JwtValidator(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(validator, "secret", SECRET);
+        ReflectionTestUtils.setField(validator, "cacheEnabled", true);
+        ReflectionTestUtils.setField(validator, "cacheMaxSize", 10_000L);
+        ReflectionTestUtils.setField(validator, "cacheMaxTtl", Duration.ofMinutes(5));
+        validator.init();
+
+        token = Jwts.builder()
+                .subject("42")
+                .claim("correo", "cliente@example.com")
+                .claim("rol", "cliente")
+                .issuedAt(new Date())
+                .expiration(Date.from(Instant.now().plus(Duration.ofHours(1))))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+        validator.parseToken(token);
+    }
+
+    @Benchmark
+    public Claims validateToken() {
+        return validator.validateToken(token);
+    }
+
+    @Benchmark
+    public JwtClaims parseTokenCached() {
+        return validator.parseToken(token);
+    }
+}
@@ -0,0 +1,47 @@
+package com.distributedsystem.orders.service;
+
+import com.distributedsystem.orders.dto.OrderDTO;
+import com.distributedsystem.orders.model.Order;
+import com.distributedsystem.orders.model.OrderFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO conversion ({@link OrderMapper#toDTO(Order)}) for a small and a large order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderMapperBenchmark {
+
+    @Param({"3", "100"})
+    private int itemCount;
+
+    private final OrderMapper mapper = new OrderMapper();
+
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        order = OrderFixtures.order(1L, itemCount);
+    }
+
+    @Benchmark
+    public OrderDTO toDTO() {
+        return mapper.toDTO(order);
+    }
+}
@@ -0,0 +1,133 @@
+package com.distributedsystem.orders.service;
+
+import com.distributedsystem.orders.OrdersServiceApplication;
+import com.distributedsystem.orders.dto.CursorPage;
+import com.distributedsystem.orders.dto.OrderDTO;
+import com.distributedsystem.orders.model.Order;
+import com.distributedsystem.orders.model.OrderItem;
+import com.distributedsystem.orders.repository.OrderRepository;
+import com.distributedsystem.orders.security.UserPrincipal;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of 50 orders with 3 items each, read from an embedded PostgreSQL and
+ * converted to DTOs. {@code rows} is the listing path (row projections, one query
+ * for the orders and one for their items); {@code entities} loads the same orders
+ * as managed entities with their items, as the listings did before. Run with
+ * {@code -prof gc}: {@code gc.alloc.rate.norm} is the heap allocated per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderPageLoadBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    private final UserPrincipal user = UserPrincipal.builder()
+            .userId("page-user")
+            .email("page-user@example.com")
+            .role("cliente")
+            .build();
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext app;
+
+    private OrderService orderService;
+    private OrderMapper orderMapper;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnly;
+
+    @Setup
+    public void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        // devtools is on the test classpath; its restart would run the application twice
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        app = new SpringApplicationBuilder(OrdersServiceApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.com.distributedsystem.orders=WARN");
+
+        orderService = app.getBean(OrderService.class);
+        orderMapper = app.getBean(OrderMapper.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(app.getBean(EntityManagerFactory.class));
+        readOnly = new TransactionTemplate(app.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Order order = Order.builder()
+                    .userId(user.getUserId())
+                    .userEmail(user.getEmail())
+                    .notes("Entregar en portería")
+                    .build();
+            for (int j = 1; j <= ITEMS_PER_ORDER; j++) {
+                order.addItem(OrderItem.builder()
+                        .productId((long) j)
+                        .productSku("SKU-" + (1000 + j))
+                        .productName("Producto de prueba " + j)
+                        .quantity(j)
+                        .unitPrice(new BigDecimal("19.99"))
+                        .subtotal(new BigDecimal("19.99").multiply(BigDecimal.valueOf(j)))
+                        .build());
+            }
+            order.calculateTotalAmount();
+            orders.add(order);
+        }
+        app.getBean(OrderRepository.class).saveAll(orders);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        app.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public CursorPage<OrderDTO> rows() {
+        return orderService.getUserOrdersByCursor(user, null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<OrderDTO> entities() {
+        return readOnly.execute(status -> entityManager.createQuery(
+                        "SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.userId = :userId "
+                                + "ORDER BY o.createdAt DESC, o.id DESC", Order.class)
+                .setParameter("userId", user.getUserId())
+                .getResultList()
+                .stream()
+                .map(orderMapper::toDTO)
+                .toList());
+    }
+}
@@ -0,0 +1,86 @@
+package com.distributedsystem.orders.service;
+
+import com.distributedsystem.orders.dto.StockUpdateItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payments reducing the stock of 3 hot SKUs through {@link StockUpdateAggregator}.
+ * Products is simulated in-process: each update-stock request takes 10 ms and
+ * requests are serialized, like row locks on a hot product. {@code window=direct}
+ * sends one request per payment; the others coalesce with that window. Change
+ * the number of callers with {@code -t}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(64)
+@Fork(1)
+public class StockUpdateAggregatorBenchmark {
+
+    private static final long[] PRODUCT_IDS = {1L, 2L, 3L};
+
+    @Param({"direct", "PT0S", "PT0.01S"})
+    private String window;
+
+    private StockUpdateAggregator aggregator;
+
+    @Setup
+    public void setUp() {
+        aggregator = new StockUpdateAggregator(new HotRowProductServiceClient(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(aggregator, "coalescingEnabled", !"direct".equals(window));
+        ReflectionTestUtils.setField(aggregator, "window",
+                "direct".equals(window) ? Duration.ZERO : Duration.parse(window));
+        ReflectionTestUtils.setField(aggregator, "maxBatchSize", 200);
+        aggregator.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        aggregator.stop();
+    }
+
+    @Benchmark
+    public void reduceStock() {
+        long productId = PRODUCT_IDS[ThreadLocalRandom.current().nextInt(PRODUCT_IDS.length)];
+        aggregator.apply(List.of(StockUpdateItem.builder().id(productId).quantity(-1).build()));
+    }
+
+    private static final class HotRowProductServiceClient extends ProductServiceClient {
+
+        private static final long UPDATE_MILLIS = 10;
+
+        HotRowProductServiceClient() {
+            super(null, null, null, null, null, null, null);
+        }
+
+        @Override
+        public synchronized void updateStock(List<StockUpdateItem> items, String jwtToken) {
+            try {
+                Thread.sleep(UPDATE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
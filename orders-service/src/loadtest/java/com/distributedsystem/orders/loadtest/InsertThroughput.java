@@ -0,0 +1,216 @@
+package com.distributedsystem.orders.loadtest;
+
+import com.distributedsystem.orders.OrdersServiceApplication;
+import com.distributedsystem.orders.model.Order;
+import com.distributedsystem.orders.model.OrderItem;
+import com.distributedsystem.orders.repository.OrderRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rows inserted per second when saving orders through {@link OrderRepository},
+ * with and without JDBC batching, against the same embedded PostgreSQL. Without
+ * batching every row is its own INSERT and round-trip, as it was with IDENTITY
+ * ids; with it an order and its items go out as one rewritten multi-row INSERT
+ * per table. The two modes alternate for {@code --rounds} rounds so that JIT
+ * warm-up and table growth do not favour either one. On loopback a round-trip
+ * costs next to nothing, so {@code --db-latency} puts a proxy in front of the
+ * database that delays every request by that much, as a network would.
+ *
+ * <pre>
+ * mvn -Ploadtest verify -DskipTests -Dloadtest.main=com.distributedsystem.orders.loadtest.InsertThroughput \
+ *     -Dloadtest.args="--duration=20s --concurrency=4 --items=10 --db-latency=1ms"
+ * </pre>
+ */
+public final class InsertThroughput {
+
+    private InsertThroughput() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        Duration warmup = LoadTestSettings.duration(options.get("warmup"), "10s");
+        Duration duration = LoadTestSettings.duration(options.get("duration"), "20s");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "4"));
+        int items = Integer.parseInt(options.getOrDefault("items", "10"));
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "2"));
+        Duration dbLatency = LoadTestSettings.duration(options.get("db-latency"), "0ms");
+        System.out.printf("Insert throughput: warmup=%ds duration=%ds concurrency=%d items=%d rounds=%d "
+                        + "db-latency=%dms%n",
+                warmup.toSeconds(), duration.toSeconds(), concurrency, items, rounds, dbLatency.toMillis());
+
+        List<String> results = new ArrayList<>();
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                .setServerConfig("max_connections", "200")
+                .start();
+             LatencyProxy proxy = new LatencyProxy(postgres.getPort(), dbLatency)) {
+            for (int round = 1; round <= rounds; round++) {
+                for (boolean batching : new boolean[]{false, true}) {
+                    try (ConfigurableApplicationContext app = startApplication(proxy.port(), batching)) {
+                        double ordersPerSecond = measure(app, concurrency, items, warmup, duration);
+                        results.add(String.format("%-6d %-9s %12.1f %12.1f",
+                                round, batching, ordersPerSecond, ordersPerSecond * (items + 1)));
+                    }
+                }
+            }
+        }
+
+        System.out.printf("%n%-6s %-9s %12s %12s%n", "round", "batching", "orders/s", "rows/s");
+        results.forEach(System.out::println);
+        System.exit(0);
+    }
+
+    private static double measure(ConfigurableApplicationContext app, int concurrency, int items,
+            Duration warmup, Duration duration) throws InterruptedException {
+        OrderRepository orders = app.getBean(OrderRepository.class);
+        TransactionTemplate transaction = app.getBean(TransactionTemplate.class);
+        LongAdder saved = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                while (running.get()) {
+                    transaction.executeWithoutResult(status -> orders.save(newOrder(items)));
+                    saved.increment();
+                }
+            });
+        }
+        Thread.sleep(warmup.toMillis());
+        long before = saved.sum();
+        long start = System.nanoTime();
+        Thread.sleep(duration.toMillis());
+        long count = saved.sum() - before;
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        running.set(false);
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+        return count / seconds;
+    }
+
+    private static Order newOrder(int items) {
+        Order order = Order.builder()
+                .userId("it-user")
+                .userEmail("it-user@example.com")
+                .build();
+        for (int i = 1; i <= items; i++) {
+            order.addItem(OrderItem.builder()
+                    .productId((long) i)
+                    .productSku("SKU-" + i)
+                    .productName("Product " + i)
+                    .quantity(1)
+                    .unitPrice(BigDecimal.TEN)
+                    .subtotal(BigDecimal.TEN)
+                    .build());
+        }
+        order.calculateTotalAmount();
+        return order;
+    }
+
+    private static ConfigurableApplicationContext startApplication(int databasePort, boolean batching) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:postgresql://127.0.0.1:" + databasePort
+                        + "/postgres?reWriteBatchedInserts=" + batching,
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--jwt.secret=insert-throughput-secret-key-that-is-at-least-256-bits-long",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN"));
+        if (!batching) {
+            arguments.add("--spring.jpa.properties.hibernate.jdbc.batch_size=1");
+        }
+        // devtools is on the test classpath; its restart would run main() again
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return new SpringApplicationBuilder(OrdersServiceApplication.class).run(arguments.toArray(String[]::new));
+    }
+
+    /**
+     * Forwards connections to the database, holding back every chunk the client
+     * sends for the configured latency before passing it on.
+     */
+    private static final class LatencyProxy implements AutoCloseable {
+
+        private final ServerSocket server;
+        private final ExecutorService pumps = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "db-latency-proxy");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        LatencyProxy(int databasePort, Duration latency) throws IOException {
+            server = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+            pumps.execute(() -> {
+                while (!server.isClosed()) {
+                    try {
+                        Socket client = server.accept();
+                        Socket database = new Socket(InetAddress.getLoopbackAddress(), databasePort);
+                        client.setTcpNoDelay(true);
+                        database.setTcpNoDelay(true);
+                        pumps.execute(() -> pump(client, database, latency));
+                        pumps.execute(() -> pump(database, client, Duration.ZERO));
+                    } catch (IOException e) {
+                        // closed
+                    }
+                }
+            });
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        private static void pump(Socket from, Socket to, Duration latency) {
+            byte[] buffer = new byte[64 * 1024];
+            try (from; to) {
+                InputStream in = from.getInputStream();
+                OutputStream out = to.getOutputStream();
+                for (int read; (read = in.read(buffer)) >= 0; ) {
+                    if (!latency.isZero()) {
+                        Thread.sleep(latency.toMillis());
+                    }
+                    out.write(buffer, 0, read);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // the other side closed the connection
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+            pumps.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.distributedsystem.orders.loadtest;
+
+import com.distributedsystem.orders.loadtest.LoadTestSettings.Operation;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies (HdrHistogram, 1us to 1min) and response statuses per operation.
+ * {@link #reset()} drops what was recorded during warmup.
+ */
+class LatencyReport {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    LatencyReport() {
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(TimeUnit.MICROSECONDS.toNanos(1), MAX_LATENCY_NANOS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    void record(Operation operation, long latencyNanos, int status) {
+        recorders.get(operation).recordValue(Math.min(latencyNanos, MAX_LATENCY_NANOS));
+        statuses.computeIfAbsent(operation + " " + (status > 0 ? status : "io-error"), k -> new LongAdder())
+                .increment();
+        if (status < 200 || status >= 300) {
+            errors.get(operation).increment();
+        }
+    }
+
+    void reset() {
+        recorders.values().forEach(Recorder::reset);
+        statuses.clear();
+        errors.values().forEach(LongAdder::reset);
+    }
+
+    void print(PrintStream out, double seconds) {
+        Histogram total = new Histogram(TimeUnit.MICROSECONDS.toNanos(1), MAX_LATENCY_NANOS, 3);
+        long totalErrors = 0;
+
+        out.printf("%n%-8s %9s %8s %9s %9s %9s %9s %9s %9s%n",
+                "op", "count", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = recorders.get(operation).getIntervalHistogram();
+            total.add(histogram);
+            long operationErrors = errors.get(operation).sum();
+            totalErrors += operationErrors;
+            printRow(out, operation.name().toLowerCase(), histogram, operationErrors, seconds);
+        }
+        printRow(out, "total", total, totalErrors, seconds);
+
+        out.println();
+        out.println("responses: " + new TreeMap<>(statuses));
+    }
+
+    private static void printRow(PrintStream out, String name, Histogram histogram, long errors, double seconds) {
+        out.printf("%-8s %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+                millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                histogram.getTotalCount() == 0 ? 0 : histogram.getMaxValue() / 1e6);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1e6;
+    }
+}
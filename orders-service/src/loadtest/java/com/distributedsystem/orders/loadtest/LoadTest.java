@@ -0,0 +1,111 @@
+package com.distributedsystem.orders.loadtest;
+
+import com.distributedsystem.orders.OrdersServiceApplication;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offline end-to-end load test: starts an embedded PostgreSQL, stub Products and
+ * Notifications services and the real application, runs the workload and prints
+ * throughput and latency percentiles per operation.
+ *
+ * <pre>
+ * mvn -Ploadtest verify -DskipTests -Dloadtest.args="--duration=60s --concurrency=32 --products-latency=50ms"
+ * </pre>
+ */
+public final class LoadTest {
+
+    private static final String JWT_SECRET = "load-test-secret-key-that-is-at-least-256-bits-long";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.parse(args);
+        System.out.println("Load test: " + settings);
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                     .setServerConfig("max_connections", "200")
+                     .start();
+             StubServices stubs = new StubServices(settings);
+             ConfigurableApplicationContext app = startApplication(settings, postgres, stubs)) {
+
+            String baseUrl = "http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port");
+            LatencyReport report = new LatencyReport();
+            Workload workload = new Workload(settings, baseUrl, userTokens(settings.users()), report);
+
+            ExecutorService workers = workload.start();
+            if (!settings.warmup().isZero()) {
+                System.out.printf("Warming up for %ds...%n", settings.warmup().toSeconds());
+                Thread.sleep(settings.warmup().toMillis());
+                report.reset();
+            }
+            System.out.printf("Measuring for %ds...%n", settings.duration().toSeconds());
+            long start = System.nanoTime();
+            Thread.sleep(settings.duration().toMillis());
+            workload.stop();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            report.print(System.out, seconds);
+            System.out.println("stub calls (warmup included): " + stubs.callCounts());
+
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext startApplication(LoadTestSettings settings,
+            EmbeddedPostgres postgres, StubServices stubs) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.datasource.url",
+                postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true");
+        properties.put("spring.datasource.username", "postgres");
+        properties.put("spring.datasource.password", "");
+        properties.put("products.service.url", stubs.productsUrl());
+        properties.put("notifications.service.url", stubs.notificationsUrl());
+        properties.put("jwt.secret", JWT_SECRET);
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.org.springframework.web", "WARN");
+        properties.put("logging.level.org.hibernate.SQL", "WARN");
+        properties.put("logging.level.com.distributedsystem.orders", settings.appLogLevel());
+
+        // devtools is on the test classpath; its restart would run main() again
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        // passed as command-line arguments so they take precedence over application.yml
+        String[] arguments = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(OrdersServiceApplication.class).run(arguments);
+    }
+
+    private static List<String> userTokens(int users) {
+        List<String> tokens = new ArrayList<>(users);
+        Date expiration = Date.from(Instant.now().plus(Duration.ofHours(12)));
+        for (int i = 1; i <= users; i++) {
+            tokens.add(Jwts.builder()
+                    .subject("lt-user-" + i)
+                    .claim("correo", "lt-user-" + i + "@example.com")
+                    .claim("rol", "cliente")
+                    .issuedAt(new Date())
+                    .expiration(expiration)
+                    .signWith(Keys.hmacShaKeyFor(JWT_SECRET.getBytes(StandardCharsets.UTF_8)))
+                    .compact());
+        }
+        return tokens;
+    }
+}
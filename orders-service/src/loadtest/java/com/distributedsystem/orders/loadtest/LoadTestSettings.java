@@ -0,0 +1,100 @@
+package com.distributedsystem.orders.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Harness options, given as {@code --name=value} arguments. Durations accept
+ * {@code ms}, {@code s} and {@code m} suffixes; error rates are fractions (0.01 = 1%).
+ */
+record LoadTestSettings(
+        Duration warmup,
+        Duration duration,
+        int concurrency,
+        double targetRate,
+        Map<Operation, Integer> mix,
+        int users,
+        int products,
+        int maxItemsPerOrder,
+        Duration productsLatency,
+        double productsErrorRate,
+        Duration notificationsLatency,
+        double notificationsErrorRate,
+        String appLogLevel) {
+
+    enum Operation {
+        CREATE, LIST, PAY, CANCEL
+    }
+
+    static LoadTestSettings parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        LoadTestSettings settings = new LoadTestSettings(
+                duration(options.remove("warmup"), "10s"),
+                duration(options.remove("duration"), "60s"),
+                Integer.parseInt(value(options, "concurrency", "32")),
+                Double.parseDouble(value(options, "rate", "0")),
+                mix(value(options, "mix", "create:40,list:40,pay:15,cancel:5")),
+                Integer.parseInt(value(options, "users", "200")),
+                Integer.parseInt(value(options, "products", "100")),
+                Integer.parseInt(value(options, "max-items", "3")),
+                duration(options.remove("products-latency"), "20ms"),
+                Double.parseDouble(value(options, "products-error-rate", "0")),
+                duration(options.remove("notifications-latency"), "10ms"),
+                Double.parseDouble(value(options, "notifications-error-rate", "0")),
+                value(options, "app-log-level", "WARN"));
+
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + options.keySet());
+        }
+        return settings;
+    }
+
+    private static String value(Map<String, String> options, String name, String defaultValue) {
+        String value = options.remove(name);
+        return value != null ? value : defaultValue;
+    }
+
+    static Duration duration(String value, String defaultValue) {
+        String text = (value != null ? value : defaultValue).trim().toLowerCase();
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        if (text.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        if (text.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        return Duration.ofMillis(Long.parseLong(text));
+    }
+
+    private static Map<Operation, Integer> mix(String value) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : value.split(",")) {
+            String[] weight = part.split(":");
+            weights.put(Operation.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+        }
+        return weights;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("warmup=%ds duration=%ds concurrency=%d rate=%s mix=%s users=%d products=%d "
+                        + "products-latency=%dms products-error-rate=%s "
+                        + "notifications-latency=%dms notifications-error-rate=%s",
+                warmup.toSeconds(), duration.toSeconds(), concurrency,
+                targetRate > 0 ? targetRate + "/s" : "closed-loop", mix, users, products,
+                productsLatency.toMillis(), productsErrorRate,
+                notificationsLatency.toMillis(), notificationsErrorRate);
+    }
+}
@@ -0,0 +1,255 @@
+package com.distributedsystem.orders.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-ins for the Products and Notifications services, speaking the
+ * same JSON as the real ones for the endpoints orders-service calls. Every
+ * request waits the configured latency (uniformly 0.5x-1.5x) and fails with a
+ * 503 at the configured rate.
+ */
+class StubServices implements AutoCloseable {
+
+    private static final Pattern PRODUCT_PATH = Pattern.compile("/api/products/(\\d+)");
+
+    private static final long INITIAL_STOCK = 1_000_000;
+
+    static {
+        // without TCP_NODELAY small responses stall ~40ms on delayed ACKs
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor = Executors.newCachedThreadPool(daemonThreads());
+    private final Map<Long, Long> stock = new ConcurrentHashMap<>();
+    private final Map<Long, Instant> updatedAt = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+    private final HttpServer products;
+    private final HttpServer notifications;
+
+    StubServices(LoadTestSettings settings) throws IOException {
+        for (long id = 1; id <= settings.products(); id++) {
+            stock.put(id, INITIAL_STOCK);
+            updatedAt.put(id, Instant.now());
+        }
+
+        products = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 512);
+        products.createContext("/api/products", exchange -> handle(exchange, "products",
+                settings.productsLatency(), settings.productsErrorRate(), this::products));
+        products.setExecutor(executor);
+        products.start();
+
+        notifications = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 512);
+        notifications.createContext("/api/notifications", exchange -> handle(exchange, "notifications",
+                settings.notificationsLatency(), settings.notificationsErrorRate(), this::notifications));
+        notifications.setExecutor(executor);
+        notifications.start();
+    }
+
+    String productsUrl() {
+        return "http://127.0.0.1:" + products.getAddress().getPort();
+    }
+
+    String notificationsUrl() {
+        return "http://127.0.0.1:" + notifications.getAddress().getPort();
+    }
+
+    Map<String, Long> callCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        calls.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> counts.put(entry.getKey(), entry.getValue().sum()));
+        return counts;
+    }
+
+    private Reply products(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+
+        Matcher product = PRODUCT_PATH.matcher(path);
+        if ("GET".equals(method) && product.matches()) {
+            count("products.get");
+            Long id = Long.valueOf(product.group(1));
+            if (!stock.containsKey(id)) {
+                return new Reply(404, Map.of("success", false, "message", "Producto no encontrado"));
+            }
+            return new Reply(200, Map.of("success", true, "data", product(id)));
+        }
+        if ("GET".equals(method) && path.equals("/api/products")) {
+            count("products.list");
+            return listProducts(exchange.getRequestURI().getQuery());
+        }
+        if ("POST".equals(method) && path.equals("/api/products/validate-stock")) {
+            count("products.validate-stock");
+            List<Map<String, Object>> entries = new ArrayList<>();
+            for (JsonNode item : readBody(exchange).path("items")) {
+                long id = item.path("id").asLong();
+                entries.add(Map.of(
+                        "product_id", id,
+                        "product_sku", sku(id),
+                        "product_name", name(id),
+                        "available_stock", stock.getOrDefault(id, 0L),
+                        "price", price(id),
+                        "is_available", stock.containsKey(id)));
+            }
+            return new Reply(200, Map.of("success", true, "data", entries));
+        }
+        if ("POST".equals(method) && path.equals("/api/products/update-stock")) {
+            count("products.update-stock");
+            return updateStock(readBody(exchange).path("items"));
+        }
+        return new Reply(404, Map.of("success", false));
+    }
+
+    private Reply notifications(HttpExchange exchange) throws IOException {
+        count("notifications.post");
+        readBody(exchange);
+        return new Reply(201, Map.of("success", true, "message", "Notificación enviada"));
+    }
+
+    private synchronized Reply updateStock(JsonNode items) {
+        for (JsonNode item : items) {
+            long id = item.path("id").asLong();
+            if (!stock.containsKey(id) || stock.get(id) + item.path("quantity").asLong() < 0) {
+                return new Reply(400, Map.of("success", false, "message", "Stock insuficiente"));
+            }
+        }
+        Instant now = Instant.now();
+        for (JsonNode item : items) {
+            stock.merge(item.path("id").asLong(), item.path("quantity").asLong(), Long::sum);
+            updatedAt.put(item.path("id").asLong(), now);
+        }
+        return new Reply(200, Map.of("success", true, "message", "Stock actualizado", "data", items));
+    }
+
+    /** Only the paging and the {@code updated_at} ordering that orders-service asks for. */
+    private Reply listProducts(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                String[] pair = param.split("=", 2);
+                params.put(pair[0], pair.length > 1 ? pair[1] : "");
+            }
+        }
+        int page = Math.max(1, Integer.parseInt(params.getOrDefault("page", "1")));
+        int perPage = Math.min(100, Math.max(1, Integer.parseInt(params.getOrDefault("per_page", "20"))));
+
+        List<Map<String, Object>> data = stock.keySet().stream()
+                .sorted(Comparator.comparing((Long id) -> updatedAt.get(id)).reversed().thenComparing(id -> -id))
+                .skip((long) (page - 1) * perPage)
+                .limit(perPage)
+                .map(this::product)
+                .toList();
+        return new Reply(200, Map.of("success", true, "data", data));
+    }
+
+    private Map<String, Object> product(long id) {
+        Map<String, Object> product = new LinkedHashMap<>();
+        product.put("id", id);
+        product.put("sku", sku(id));
+        product.put("name", name(id));
+        product.put("price", price(id));
+        product.put("stock", stock.get(id));
+        product.put("active", true);
+        product.put("updated_at", updatedAt.get(id).toString());
+        return product;
+    }
+
+    private static String sku(long id) {
+        return "SKU-" + id;
+    }
+
+    private static String name(long id) {
+        return "Producto " + id;
+    }
+
+    private static double price(long id) {
+        return 5 + (id % 20) * 2.5;
+    }
+
+    private void handle(HttpExchange exchange, String service, Duration latency, double errorRate,
+            Handler handler) throws IOException {
+        try (exchange) {
+            sleep(latency);
+            Reply reply;
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                count(service + ".injected-errors");
+                reply = new Reply(503, Map.of("success", false, "message", "Injected failure"));
+            } else {
+                reply = handler.handle(exchange);
+            }
+            byte[] body = objectMapper.writeValueAsBytes(reply.body());
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(reply.status(), body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private JsonNode readBody(HttpExchange exchange) throws IOException {
+        return objectMapper.readTree(exchange.getRequestBody());
+    }
+
+    private void count(String name) {
+        calls.computeIfAbsent(name, k -> new LongAdder()).increment();
+    }
+
+    private static void sleep(Duration latency) {
+        if (latency.isZero()) {
+            return;
+        }
+        long nanos = (long) (latency.toNanos() * ThreadLocalRandom.current().nextDouble(0.5, 1.5));
+        try {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        return runnable -> {
+            Thread thread = new Thread(runnable, "stub-http");
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void close() {
+        products.stop(0);
+        notifications.stop(0);
+        executor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Reply handle(HttpExchange exchange) throws IOException;
+    }
+
+    private record Reply(int status, Object body) {
+    }
+}
@@ -0,0 +1,184 @@
+package com.distributedsystem.orders.loadtest;
+
+import com.distributedsystem.orders.loadtest.LoadTestSettings.Operation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the running service with a weighted mix of create, list, pay and cancel
+ * requests from {@code concurrency} workers. Without a target rate each worker
+ * sends its next request as soon as the previous one returns. With a rate, each
+ * request has a scheduled start and its latency is measured from that start, so
+ * queueing behind a slow response is reported instead of hidden.
+ * Pay and cancel act on orders created earlier in the run; when none is waiting
+ * the worker creates one instead.
+ */
+class Workload {
+
+    private final LoadTestSettings settings;
+    private final String baseUrl;
+    private final List<String> userTokens;
+    private final LatencyReport report;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+    private final Operation[] weightedOperations;
+    private final ConcurrentLinkedQueue<CreatedOrder> createdOrders = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean running = true;
+
+    Workload(LoadTestSettings settings, String baseUrl, List<String> userTokens, LatencyReport report) {
+        this.settings = settings;
+        this.baseUrl = baseUrl;
+        this.userTokens = userTokens;
+        this.report = report;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(4))
+                .build();
+
+        List<Operation> operations = new ArrayList<>();
+        settings.mix().forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                operations.add(operation);
+            }
+        });
+        this.weightedOperations = operations.toArray(Operation[]::new);
+    }
+
+    /**
+     * Starts the workers; the returned executor terminates once they notice {@link #stop()}.
+     */
+    ExecutorService start() {
+        ExecutorService workers = Executors.newFixedThreadPool(settings.concurrency());
+        long intervalNanos = settings.targetRate() > 0
+                ? (long) (TimeUnit.SECONDS.toNanos(1) * settings.concurrency() / settings.targetRate())
+                : 0;
+        for (int i = 0; i < settings.concurrency(); i++) {
+            long offset = intervalNanos * i / settings.concurrency();
+            workers.execute(() -> runWorker(intervalNanos, offset));
+        }
+        workers.shutdown();
+        return workers;
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    private void runWorker(long intervalNanos, long offset) {
+        long scheduled = System.nanoTime() + offset;
+        while (running) {
+            long start = System.nanoTime();
+            if (intervalNanos > 0) {
+                if (scheduled > start) {
+                    LockSupport.parkNanos(scheduled - start);
+                }
+                start = scheduled;
+                scheduled += intervalNanos;
+            }
+
+            Operation operation = weightedOperations[ThreadLocalRandom.current().nextInt(weightedOperations.length)];
+            CreatedOrder order = null;
+            if (operation == Operation.PAY || operation == Operation.CANCEL) {
+                order = createdOrders.poll();
+                if (order == null) {
+                    operation = Operation.CREATE;
+                }
+            }
+
+            int status;
+            try {
+                status = switch (operation) {
+                    case CREATE -> createOrder();
+                    case LIST -> listOrders();
+                    case PAY -> pay(order);
+                    case CANCEL -> cancel(order);
+                };
+            } catch (IOException e) {
+                status = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (running) {
+                report.record(operation, System.nanoTime() - start, status);
+            }
+        }
+    }
+
+    private int createOrder() throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int user = random.nextInt(userTokens.size());
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        int itemCount = 1 + random.nextInt(settings.maxItemsPerOrder());
+        for (int i = 0; i < itemCount; i++) {
+            items.add(Map.of(
+                    "productId", 1 + random.nextInt(settings.products()),
+                    "quantity", 1 + random.nextInt(2)));
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("items", items);
+        body.put("notes", "load test");
+
+        HttpResponse<byte[]> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/orders"))
+                .header("Authorization", "Bearer " + userTokens.get(user))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))));
+
+        if (response.statusCode() == 201) {
+            JsonNode data = objectMapper.readTree(response.body()).path("data");
+            createdOrders.add(new CreatedOrder(data.path("id").asLong(), user, data.path("totalAmount").asDouble()));
+        }
+        return response.statusCode();
+    }
+
+    private int listOrders() throws IOException, InterruptedException {
+        int user = ThreadLocalRandom.current().nextInt(userTokens.size());
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/orders?size=10"))
+                .header("Authorization", "Bearer " + userTokens.get(user))
+                .GET()).statusCode();
+    }
+
+    private int pay(CreatedOrder order) throws IOException, InterruptedException {
+        Map<String, Object> body = Map.of(
+                "paymentId", "lt-" + order.id(),
+                "status", "completed",
+                "amount", order.totalAmount(),
+                "paymentMethod", "card");
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/orders/" + order.id() + "/payment-callback"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))).statusCode();
+    }
+
+    private int cancel(CreatedOrder order) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/orders/" + order.id() + "/cancel"))
+                .header("Authorization", "Bearer " + userTokens.get(order.user()))
+                .PUT(HttpRequest.BodyPublishers.noBody())).statusCode();
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private record CreatedOrder(long id, int user, double totalAmount) {
+    }
+}
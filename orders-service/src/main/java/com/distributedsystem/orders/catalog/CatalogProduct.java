@@ -0,0 +1,29 @@
+package com.distributedsystem.orders.catalog;
+
+import com.distributedsystem.orders.dto.ProductDTO;
+
+import java.time.Instant;
+
+/**
+ * What orders need from a product to price an order, as of {@code updatedAt}.
+ */
+record CatalogProduct(long id, String sku, String name, Double price, Integer stock, Boolean active,
+        Instant updatedAt) {
+
+    static CatalogProduct of(ProductDTO product) {
+        return new CatalogProduct(product.getId(), product.getSku(), product.getName(), product.getPrice(),
+                product.getStock(), product.getActive(), product.getUpdatedAt());
+    }
+
+    ProductDTO toDTO() {
+        return ProductDTO.builder()
+                .id(id)
+                .sku(sku)
+                .name(name)
+                .price(price)
+                .stock(stock)
+                .active(active)
+                .updatedAt(updatedAt)
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.distributedsystem.orders.catalog;
+
+/**
+ * Open-addressing hash map from {@code long} keys to values, without boxing the
+ * keys or allocating an entry per mapping. Not thread-safe: it is filled by one
+ * thread and published to readers only once it is no longer modified.
+ */
+final class LongKeyedMap<V> {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    /** Key 0 marks an empty slot, so its value is kept aside. */
+    private boolean hasZeroKey;
+    private V zeroKeyValue;
+
+    LongKeyedMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+    }
+
+    private LongKeyedMap(LongKeyedMap<V> source) {
+        this.keys = source.keys.clone();
+        this.values = source.values.clone();
+        this.size = source.size;
+        this.hasZeroKey = source.hasZeroKey;
+        this.zeroKeyValue = source.zeroKeyValue;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        if (key == 0) {
+            return zeroKeyValue;
+        }
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            long candidate = keys[slot];
+            if (candidate == key) {
+                return (V) values[slot];
+            }
+            if (candidate == 0) {
+                return null;
+            }
+        }
+    }
+
+    void put(long key, V value) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroKeyValue = value;
+            return;
+        }
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size > keys.length * LOAD_FACTOR) {
+                resize();
+            }
+            return;
+        }
+        values[slot] = value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** An independent copy, to be changed while readers keep using this one. */
+    LongKeyedMap<V> copy() {
+        return new LongKeyedMap<>(this);
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(oldKeys[i], mask);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,254 @@
+package com.distributedsystem.orders.catalog;
+
+import com.distributedsystem.orders.config.ProductCatalogProperties;
+import com.distributedsystem.orders.dto.ProductDTO;
+import com.distributedsystem.orders.security.ServiceTokenProvider;
+import com.distributedsystem.orders.service.ProductServiceClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory copy of the Products catalog, so new orders can be priced without a
+ * round-trip to the Products Service. A background thread loads every product at
+ * startup, then every {@code sync-interval} fetches the products updated since
+ * the newest change it has seen (the list endpoint sorted by {@code updated_at})
+ * and reloads everything every {@code full-reload-interval} to drop deleted ones.
+ * <p>
+ * Readers always see a complete snapshot: changes are applied to a copy that
+ * replaces the current map. Until the first load, when the last successful sync
+ * is older than {@code max-staleness}, or for products it does not know yet,
+ * lookups go to the Products Service as before.
+ */
+@Component
+@EnableConfigurationProperties(ProductCatalogProperties.class)
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCatalog {
+
+    private final ProductCatalogProperties properties;
+    private final ProductServiceClient productServiceClient;
+    private final ServiceTokenProvider serviceTokens;
+    private final MeterRegistry meterRegistry;
+
+    private volatile LongKeyedMap<CatalogProduct> products;
+
+    /** {@link System#nanoTime()} at which the last successful sync started. */
+    private volatile long syncedAt;
+
+    /** Newest {@code updated_at} seen so far; only used by the sync thread. */
+    private Instant lastChange = Instant.EPOCH;
+
+    private long nextFullReloadAt;
+
+    private volatile boolean running;
+    private Thread syncThread;
+
+    private Counter localLookups;
+    private Counter liveLookups;
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        localLookups = lookups("local");
+        liveLookups = lookups("live");
+        Gauge.builder("products.catalog.size", this, catalog -> catalog.products == null ? 0 : catalog.products.size())
+                .description("Products held in the local catalog")
+                .register(meterRegistry);
+        TimeGauge.builder("products.catalog.staleness", this, TimeUnit.NANOSECONDS,
+                        catalog -> catalog.products == null ? Double.NaN : System.nanoTime() - catalog.syncedAt)
+                .description("Time since the last successful catalog sync started")
+                .register(meterRegistry);
+
+        running = true;
+        syncThread = new Thread(this::syncLoop, "product-catalog-sync");
+        syncThread.setDaemon(true);
+        syncThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (syncThread != null) {
+            syncThread.interrupt();
+        }
+    }
+
+    /**
+     * Same contract as {@link ProductServiceClient#getProducts}: every requested id
+     * is present in the result, in request order. Stock comes from the last sync,
+     * so it is only indicative; it is enforced when the order is paid.
+     */
+    public Map<Long, ProductDTO> getProducts(Collection<Long> productIds, String jwtToken) {
+        LongKeyedMap<CatalogProduct> snapshot = freshSnapshot();
+        Set<Long> uniqueIds = new LinkedHashSet<>(productIds);
+        if (snapshot == null) {
+            if (liveLookups != null) {
+                liveLookups.increment(uniqueIds.size());
+            }
+            return productServiceClient.getProducts(uniqueIds, jwtToken);
+        }
+
+        Map<Long, ProductDTO> local = new LinkedHashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : uniqueIds) {
+            CatalogProduct product = snapshot.get(id);
+            if (product != null) {
+                local.put(id, product.toDTO());
+            } else {
+                missing.add(id);
+            }
+        }
+        localLookups.increment(local.size());
+        if (missing.isEmpty()) {
+            return local;
+        }
+
+        liveLookups.increment(missing.size());
+        Map<Long, ProductDTO> live = productServiceClient.getProducts(missing, jwtToken);
+        Map<Long, ProductDTO> ordered = new LinkedHashMap<>();
+        uniqueIds.forEach(id -> ordered.put(id, local.containsKey(id) ? local.get(id) : live.get(id)));
+        return ordered;
+    }
+
+    private LongKeyedMap<CatalogProduct> freshSnapshot() {
+        LongKeyedMap<CatalogProduct> snapshot = products;
+        if (snapshot == null || System.nanoTime() - syncedAt > properties.getMaxStaleness().toNanos()) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    private void syncLoop() {
+        while (running) {
+            long started = System.nanoTime();
+            boolean full = products == null || started - nextFullReloadAt >= 0;
+            try {
+                if (full) {
+                    reload();
+                    nextFullReloadAt = started + properties.getFullReloadInterval().toNanos();
+                } else {
+                    applyChanges();
+                }
+                syncedAt = started;
+            } catch (RuntimeException e) {
+                log.warn("Product catalog sync failed: {}", e.getMessage());
+                syncs(full ? "full" : "delta", "failure");
+            }
+
+            try {
+                Thread.sleep(properties.getSyncInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void reload() {
+        LongKeyedMap<CatalogProduct> loaded = new LongKeyedMap<>(products == null ? 1024 : products.size());
+        Instant newest = Instant.EPOCH;
+        for (int page = 1; ; page++) {
+            List<ProductDTO> batch = fetchPage(page);
+            for (ProductDTO product : batch) {
+                loaded.put(product.getId(), CatalogProduct.of(product));
+                newest = latest(newest, product.getUpdatedAt());
+            }
+            if (batch.size() < properties.getPageSize()) {
+                break;
+            }
+        }
+
+        boolean first = products == null;
+        products = loaded;
+        lastChange = newest;
+        syncs("full", "success");
+        if (first) {
+            log.info("Product catalog loaded: {} products", loaded.size());
+        } else {
+            log.debug("Product catalog reloaded: {} products", loaded.size());
+        }
+    }
+
+    private void applyChanges() {
+        Instant since = lastChange.minus(properties.getOverlap());
+        List<ProductDTO> changed = new ArrayList<>();
+        fetch:
+        for (int page = 1; ; page++) {
+            List<ProductDTO> batch = fetchPage(page);
+            for (ProductDTO product : batch) {
+                if (product.getUpdatedAt() != null && product.getUpdatedAt().isBefore(since)) {
+                    break fetch;
+                }
+                changed.add(product);
+            }
+            if (batch.size() < properties.getPageSize()) {
+                break;
+            }
+        }
+
+        LongKeyedMap<CatalogProduct> current = products;
+        LongKeyedMap<CatalogProduct> updated = null;
+        Instant newest = lastChange;
+        for (ProductDTO product : changed) {
+            CatalogProduct entry = CatalogProduct.of(product);
+            if (!entry.equals(current.get(entry.id()))) {
+                if (updated == null) {
+                    updated = current.copy();
+                }
+                updated.put(entry.id(), entry);
+            }
+            newest = latest(newest, product.getUpdatedAt());
+        }
+
+        if (updated != null) {
+            products = updated;
+            log.debug("Product catalog updated: {} products changed", changed.size());
+        }
+        lastChange = newest;
+        syncs("delta", "success");
+    }
+
+    private List<ProductDTO> fetchPage(int page) {
+        return productServiceClient.listProductsByLastUpdate(page, properties.getPageSize(), serviceTokens.getToken());
+    }
+
+    private static Instant latest(Instant current, Instant candidate) {
+        return candidate != null && candidate.isAfter(current) ? candidate : current;
+    }
+
+    private Counter lookups(String source) {
+        return Counter.builder("products.catalog.lookups")
+                .description("Products priced from the local catalog or looked up live")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    private void syncs(String type, String outcome) {
+        Counter.builder("products.catalog.syncs")
+                .description("Catalog syncs by type (full reload or changes only) and outcome")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
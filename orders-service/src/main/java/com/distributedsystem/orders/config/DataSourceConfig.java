@@ -0,0 +1,91 @@
+package com.distributedsystem.orders.config;
+
+import com.distributedsystem.orders.datasource.ReadYourWritesTracker;
+import com.distributedsystem.orders.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+@Configuration
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class DataSourceConfig {
+
+    /**
+     * With {@code orders.datasource.replica.enabled}, the application DataSource is a
+     * lazy proxy over the primary pool. Connections are only fetched at the first
+     * statement, once the transaction's read-only flag is known, and read-only
+     * transactions take theirs from {@link ReplicaRoutingDataSource}. Writes and
+     * non-transactional access always use the primary. The pools are not
+     * autowire candidates, so health checks and other DataSource consumers only
+     * see the proxy, and a failing replica does not mark the service DOWN.
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = "orders.datasource.replica", name = "enabled", havingValue = "true")
+    @RequiredArgsConstructor
+    static class ReplicaRoutingConfiguration {
+
+        private final DataSourceProperties dataSourceProperties;
+        private final ReplicaDataSourceProperties replicaProperties;
+        private final MeterRegistry meterRegistry;
+
+        @Bean(autowireCandidate = false)
+        @ConfigurationProperties(prefix = "spring.datasource.hikari")
+        public HikariDataSource primaryDataSource() {
+            HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .build();
+            dataSource.setPoolName("primary");
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            return dataSource;
+        }
+
+        @Bean(autowireCandidate = false)
+        @ConfigurationProperties(prefix = "orders.datasource.replica.hikari")
+        public HikariDataSource replicaDataSource() {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(replicaProperties.getUrl())
+                    .username(replicaProperties.getUsername() != null
+                            ? replicaProperties.getUsername() : dataSourceProperties.determineUsername())
+                    .password(replicaProperties.getPassword() != null
+                            ? replicaProperties.getPassword() : dataSourceProperties.determinePassword())
+                    .build();
+            dataSource.setPoolName("replica");
+            dataSource.setReadOnly(true);
+            // fail fast when the replica is down: the read falls back to the primary
+            dataSource.setConnectionTimeout(1000);
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            return dataSource;
+        }
+
+        @Bean(autowireCandidate = false)
+        public ReplicaRoutingDataSource replicaRoutingDataSource(ReadYourWritesTracker readYourWrites) {
+            return new ReplicaRoutingDataSource(primaryDataSource(), replicaDataSource(), replicaProperties,
+                    readYourWrites, meterRegistry);
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(ReadYourWritesTracker readYourWrites) {
+            LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource());
+            dataSource.setReadOnlyDataSource(replicaRoutingDataSource(readYourWrites));
+            dataSource.setDefaultAutoCommit(true);
+            dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            return dataSource;
+        }
+    }
+}
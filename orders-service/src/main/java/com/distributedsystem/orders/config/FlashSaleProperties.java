@@ -0,0 +1,26 @@
+package com.distributedsystem.orders.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Products on flash sale get their available stock tracked in memory, so orders
+ * for a sold-out product are rejected without calling the Products Service.
+ */
+@Data
+@ConfigurationProperties(prefix = "products.flash-sale")
+public class FlashSaleProperties {
+
+    /** Products whose stock is tracked locally; empty turns flash-sale mode off. */
+    private Set<Long> productIds = new LinkedHashSet<>();
+
+    /** Independent counters per product, so concurrent reservations rarely touch the same one. */
+    private int stripes = 16;
+
+    /** How often the counters are recomputed from Products stock and unpaid orders. */
+    private Duration reconcileInterval = Duration.ofSeconds(10);
+}
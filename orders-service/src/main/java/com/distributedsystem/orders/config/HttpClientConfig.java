@@ -0,0 +1,115 @@
+package com.distributedsystem.orders.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.BufferingClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.observation.ClientRequestObservationContext;
+import org.springframework.http.client.observation.DefaultClientRequestObservationConvention;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Outbound HTTP clients. Each downstream service gets its own connection pool so a
+ * slow dependency can only exhaust its own connections, never the other's. Request
+ * bodies are buffered so they are sent with a Content-Length instead of chunked.
+ */
+@Configuration
+@EnableConfigurationProperties({HttpClientProperties.class, ProductReadProperties.class})
+public class HttpClientConfig {
+
+    @Bean
+    public HttpComponentsClientHttpRequestFactory productsRequestFactory(
+            HttpClientProperties properties, MeterRegistry meterRegistry) {
+        return new HttpComponentsClientHttpRequestFactory(
+                buildHttpClient("products", properties.getProducts(), meterRegistry));
+    }
+
+    @Bean
+    public HttpComponentsClientHttpRequestFactory notificationsRequestFactory(
+            HttpClientProperties properties, MeterRegistry meterRegistry) {
+        return new HttpComponentsClientHttpRequestFactory(
+                buildHttpClient("notifications", properties.getNotifications(), meterRegistry));
+    }
+
+    @Bean
+    public RestTemplate productsRestTemplate(
+            RestTemplateBuilder builder,
+            @Qualifier("productsRequestFactory") HttpComponentsClientHttpRequestFactory requestFactory) {
+        RestTemplate restTemplate = builder
+                .requestFactory(() -> new BufferingClientHttpRequestFactory(requestFactory))
+                .build();
+        restTemplate.setObservationConvention(new NamedClientObservationConvention("products"));
+        return restTemplate;
+    }
+
+    @Bean
+    public RestTemplate notificationsRestTemplate(
+            RestTemplateBuilder builder,
+            @Qualifier("notificationsRequestFactory") HttpComponentsClientHttpRequestFactory requestFactory) {
+        RestTemplate restTemplate = builder
+                .requestFactory(() -> new BufferingClientHttpRequestFactory(requestFactory))
+                .build();
+        restTemplate.setObservationConvention(new NamedClientObservationConvention("notifications"));
+        return restTemplate;
+    }
+
+    private CloseableHttpClient buildHttpClient(String name, HttpClientProperties.Pool pool,
+            MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(pool.getMaxTotal())
+                .setMaxConnPerRoute(pool.getMaxPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(pool.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(pool.getResponseTimeout()))
+                        .setTimeToLive(TimeValue.of(pool.getTimeToLive()))
+                        .setValidateAfterInactivity(TimeValue.of(pool.getValidateAfterInactivity()))
+                        .build())
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, name).bindTo(meterRegistry);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(pool.getConnectionRequestTimeout()))
+                .setResponseTimeout(Timeout.of(pool.getResponseTimeout()))
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(pool.getIdleEviction()))
+                .build();
+    }
+
+    /**
+     * Tags {@code http.client.requests} with the downstream service name instead of
+     * the host, which is the same for every service in local and compose setups.
+     */
+    private static class NamedClientObservationConvention extends DefaultClientRequestObservationConvention {
+
+        private final KeyValue clientName;
+
+        NamedClientObservationConvention(String clientName) {
+            this.clientName = KeyValue.of("client.name", clientName);
+        }
+
+        @Override
+        protected KeyValue clientName(ClientRequestObservationContext context) {
+            return clientName;
+        }
+    }
+}
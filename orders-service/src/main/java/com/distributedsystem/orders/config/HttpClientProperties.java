@@ -0,0 +1,42 @@
+package com.distributedsystem.orders.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "http.client")
+public class HttpClientProperties {
+
+    private Pool products = new Pool();
+
+    private Pool notifications = new Pool();
+
+    @Data
+    public static class Pool {
+        /** Maximum number of pooled connections across all routes. */
+        private int maxTotal = 50;
+
+        /** Maximum number of pooled connections to a single host. */
+        private int maxPerRoute = 50;
+
+        /** Time allowed to establish the TCP connection. */
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        /** Time to wait for a free connection from the pool. */
+        private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+
+        /** Time to wait for the response once the request has been sent. */
+        private Duration responseTimeout = Duration.ofSeconds(5);
+
+        /** Idle connections older than this are closed by a background evictor. */
+        private Duration idleEviction = Duration.ofSeconds(30);
+
+        /** Maximum lifetime of a pooled connection, regardless of activity. */
+        private Duration timeToLive = Duration.ofMinutes(5);
+
+        /** Idle time after which a connection is re-validated before being reused. */
+        private Duration validateAfterInactivity = Duration.ofSeconds(2);
+    }
+}
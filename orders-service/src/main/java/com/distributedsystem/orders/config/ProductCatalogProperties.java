@@ -0,0 +1,34 @@
+package com.distributedsystem.orders.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Local copy of the product catalog used to price new orders without a call to
+ * the Products Service. It is loaded in full at startup and then kept up to date
+ * from the products changed since the last sync.
+ */
+@Data
+@ConfigurationProperties(prefix = "products.catalog")
+public class ProductCatalogProperties {
+
+    /** Price orders from the local catalog; otherwise every order looks its products up live. */
+    private boolean enabled = false;
+
+    /** How often products changed since the last sync are fetched. */
+    private Duration syncInterval = Duration.ofSeconds(5);
+
+    /** How often the whole catalog is reloaded, which also drops deleted products. */
+    private Duration fullReloadInterval = Duration.ofMinutes(10);
+
+    /** Orders fall back to live lookups when the last successful sync is older than this. */
+    private Duration maxStaleness = Duration.ofSeconds(30);
+
+    /** Products per page requested from the list endpoint (Products allows up to 100). */
+    private int pageSize = 100;
+
+    /** Products updated up to this long before the last change seen are fetched again, in case clocks or commits lag. */
+    private Duration overlap = Duration.ofSeconds(5);
+}
@@ -0,0 +1,68 @@
+package com.distributedsystem.orders.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Retries and hedging for read-only calls to the Products Service. Extra attempts
+ * (retries and hedges alike) are drawn from a shared budget so a struggling
+ * Products Service never sees more than a fraction of additional load.
+ */
+@Data
+@ConfigurationProperties(prefix = "products.service.reads")
+public class ProductReadProperties {
+
+    private Retry retry = new Retry();
+
+    private Hedging hedging = new Hedging();
+
+    private Budget budget = new Budget();
+
+    /** Maximum number of attempts running concurrently on the attempt executor. */
+    private int maxConcurrentAttempts = 64;
+
+    @Data
+    public static class Retry {
+        /** Total attempts per read, including the first one. */
+        private int maxAttempts = 3;
+
+        /** Upper bound of the first backoff; each retry doubles it (full jitter). */
+        private Duration initialBackoff = Duration.ofMillis(50);
+
+        /** Cap on a single backoff. */
+        private Duration maxBackoff = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Hedging {
+        /** Send a second attempt when the first one is slower than usual. */
+        private boolean enabled = true;
+
+        /** Latency percentile of recent attempts after which the hedge is sent. */
+        private double percentile = 0.95;
+
+        /** Hedge delay used until {@code minSamples} attempts have been observed. */
+        private Duration initialDelay = Duration.ofMillis(200);
+
+        private int minSamples = 100;
+
+        /** Bounds applied to the percentile-based delay. */
+        private Duration minDelay = Duration.ofMillis(20);
+
+        private Duration maxDelay = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Budget {
+        /** Extra attempts earned per read, e.g. 0.1 allows 10% additional requests. */
+        private double ratio = 0.1;
+
+        /** Extra attempts always allowed per second, so low traffic can still retry. */
+        private double minPerSecond = 5;
+
+        /** Maximum number of extra attempts that can be saved up for a burst. */
+        private double maxBalance = 20;
+    }
+}
@@ -0,0 +1,34 @@
+package com.distributedsystem.orders.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Optional read replica for {@code @Transactional(readOnly = true)} work. Pool
+ * settings go under {@code orders.datasource.replica.hikari}, like
+ * {@code spring.datasource.hikari} for the primary.
+ */
+@Data
+@ConfigurationProperties(prefix = "orders.datasource.replica")
+public class ReplicaDataSourceProperties {
+
+    /** Route read-only transactions to the replica. */
+    private boolean enabled = false;
+
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    /** Reads go to the primary while the replica is further behind than this. */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /** How often replication lag is measured. */
+    private Duration lagCheckInterval = Duration.ofSeconds(1);
+
+    /** A user's reads stay on the primary for this long after they change an order. */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+}
@@ -26,8 +26,10 @@ public class SecurityConfig {
                 })
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        .requestMatchers(HttpMethod.POST, "/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/api/health", "/actuator/**").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/orders/*/payment-callback").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/orders/*/payment-callback/*").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/orders").authenticated()
                         .requestMatchers(HttpMethod.GET, "/api/orders", "/api/orders/*").authenticated()
                         .requestMatchers(HttpMethod.PUT, "/api/orders/*/status").authenticated()
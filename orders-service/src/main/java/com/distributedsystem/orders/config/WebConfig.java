@@ -3,7 +3,7 @@ package com.distributedsystem.orders.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -33,7 +33,31 @@ public class WebConfig implements WebMvcConfigurer {
     }
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public ThreadPoolTaskExecutor productLookupExecutor(
+            @Value("${products.service.lookup-parallelism:8}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(parallelism * 32);
+        executor.setThreadNamePrefix("product-lookup-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs individual Products read attempts so a slow one can be hedged. It has no
+     * queue: when every thread is busy the read simply runs without hedging.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor productAttemptExecutor(
+            @Value("${products.service.reads.max-concurrent-attempts:64}") int maxConcurrentAttempts) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentAttempts);
+        executor.setMaxPoolSize(maxConcurrentAttempts);
+        executor.setQueueCapacity(0);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("product-attempt-");
+        executor.initialize();
+        return executor;
     }
 }
@@ -1,14 +1,21 @@
 package com.distributedsystem.orders.controller;
 
 import com.distributedsystem.orders.dto.CreateOrderRequest;
+import com.distributedsystem.orders.dto.CursorPage;
 import com.distributedsystem.orders.dto.OrderDTO;
 import com.distributedsystem.orders.dto.PaymentCallbackRequest;
+import com.distributedsystem.orders.dto.PaymentConfirmationDTO;
 import com.distributedsystem.orders.dto.UpdateOrderStatusRequest;
 import com.distributedsystem.orders.model.OrderStatus;
 import com.distributedsystem.orders.security.UserPrincipal;
+import com.distributedsystem.orders.service.IdempotencyService;
+import com.distributedsystem.orders.service.IdempotentResult;
 import com.distributedsystem.orders.service.OrderService;
+import com.distributedsystem.orders.service.PaymentConfirmationService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -20,7 +27,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriUtils;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
@@ -31,36 +41,62 @@ import java.util.Map;
 @Slf4j
 public class OrderController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final long MAX_PAGE_SIZE = 100;
+
     private final OrderService orderService;
+    private final PaymentConfirmationService paymentConfirmationService;
+    private final IdempotencyService idempotencyService;
 
+    /**
+     * With an {@code Idempotency-Key} header, retries of the same request return the
+     * stored response of the first execution instead of creating another order.
+     */
     @PostMapping
     public ResponseEntity<ApiResponse<OrderDTO>> createOrder(
             @Valid @RequestBody CreateOrderRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @AuthenticationPrincipal UserPrincipal userPrincipal,
             HttpServletRequest httpRequest) {
 
         String jwtToken = extractToken(httpRequest);
-        OrderDTO order = orderService.createOrder(request, userPrincipal, jwtToken);
+        IdempotentResult<OrderDTO> result = idempotencyService.execute(
+                idempotencyKey, userPrincipal.getUserId(), request, OrderDTO.class,
+                () -> orderService.createOrder(request, userPrincipal, jwtToken));
 
         ApiResponse<OrderDTO> response = ApiResponse.<OrderDTO>builder()
                 .success(true)
-                .data(order)
+                .data(result.value())
                 .message("Order created successfully")
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        return new ResponseEntity<>(response, HttpStatus.CREATED);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.replayed()))
+                .body(response);
     }
 
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<OrderDTO>>> getUserOrders(
+    public ResponseEntity<ApiResponse<?>> getUserOrders(
             @RequestParam(required = false) OrderStatus status,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "0") @Min(0) int page,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(MAX_PAGE_SIZE) int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(defaultValue = "offset") String paging,
+            @RequestParam(required = false) String cursor,
             @AuthenticationPrincipal UserPrincipal userPrincipal) {
 
+        if (isCursorPaging(paging, cursor)) {
+            CursorPage<OrderDTO> orders = orderService.getUserOrdersByCursor(userPrincipal, status, cursor, size);
+            return ResponseEntity.ok(ApiResponse.<CursorPage<OrderDTO>>builder()
+                    .success(true)
+                    .data(orders)
+                    .timestamp(LocalDateTime.now())
+                    .build());
+        }
+
         Sort sort = Sort.by(Sort.Direction.fromString(sortDir), sortBy);
         Pageable pageable = PageRequest.of(page, size, sort);
 
@@ -76,18 +112,29 @@ public class OrderController {
     }
 
     @GetMapping("/admin/all")
-    public ResponseEntity<ApiResponse<Page<OrderDTO>>> getAllOrders(
+    public ResponseEntity<ApiResponse<?>> getAllOrders(
             @RequestParam(required = false) OrderStatus status,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "0") @Min(0) int page,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(MAX_PAGE_SIZE) int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(defaultValue = "offset") String paging,
+            @RequestParam(required = false) String cursor,
             @AuthenticationPrincipal UserPrincipal userPrincipal) {
 
         if (!userPrincipal.isAdmin()) {
             throw new AccessDeniedException("Only administrators can view all orders");
         }
 
+        if (isCursorPaging(paging, cursor)) {
+            CursorPage<OrderDTO> orders = orderService.getAllOrdersByCursor(status, cursor, size);
+            return ResponseEntity.ok(ApiResponse.<CursorPage<OrderDTO>>builder()
+                    .success(true)
+                    .data(orders)
+                    .timestamp(LocalDateTime.now())
+                    .build());
+        }
+
         Sort sort = Sort.by(Sort.Direction.fromString(sortDir), sortBy);
         Pageable pageable = PageRequest.of(page, size, sort);
 
@@ -143,6 +190,22 @@ public class OrderController {
 
         log.info("Payment callback received for order: {}, paymentId: {}", id, request.getPaymentId());
 
+        if (paymentConfirmationService.isEnabled()) {
+            boolean queued = paymentConfirmationService.accept(id, request);
+
+            ApiResponse<OrderDTO> response = ApiResponse.<OrderDTO>builder()
+                    .success(true)
+                    .message(queued ? "Payment accepted, the order will be updated shortly"
+                            : "Payment already accepted")
+                    .timestamp(LocalDateTime.now())
+                    .build();
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .location(URI.create("/api/orders/" + id + "/payment-callback/"
+                            + UriUtils.encodePathSegment(request.getPaymentId(), StandardCharsets.UTF_8)))
+                    .body(response);
+        }
+
         OrderDTO order = orderService.handlePaymentCallback(id, request);
 
         ApiResponse<OrderDTO> response = ApiResponse.<OrderDTO>builder()
@@ -155,6 +218,26 @@ public class OrderController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Outcome of a payment answered with 202: PENDING until the worker applies it,
+     * then APPLIED, or FAILED with the reason in {@code lastError}.
+     */
+    @GetMapping("/{id}/payment-callback/{paymentId}")
+    public ResponseEntity<ApiResponse<PaymentConfirmationDTO>> paymentStatus(
+            @PathVariable Long id,
+            @PathVariable String paymentId) {
+
+        PaymentConfirmationDTO confirmation = paymentConfirmationService.getStatus(id, paymentId);
+
+        ApiResponse<PaymentConfirmationDTO> response = ApiResponse.<PaymentConfirmationDTO>builder()
+                .success(true)
+                .data(confirmation)
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
     @PutMapping("/{id}/cancel")
     public ResponseEntity<ApiResponse<OrderDTO>> cancelOrder(
             @PathVariable Long id,
@@ -184,6 +267,14 @@ public class OrderController {
         return ResponseEntity.ok(health);
     }
 
+    /**
+     * Cursor (keyset) paging is used when asked for with {@code paging=cursor} or when
+     * a cursor from a previous page is passed. It always returns newest orders first.
+     */
+    private boolean isCursorPaging(String paging, String cursor) {
+        return cursor != null || "cursor".equalsIgnoreCase(paging);
+    }
+
     private String extractToken(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
@@ -0,0 +1,86 @@
+package com.distributedsystem.orders.datasource;
+
+import com.distributedsystem.orders.config.ReplicaDataSourceProperties;
+import com.distributedsystem.orders.security.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Remembers which users changed an order in the last few seconds, so their own
+ * reads are served by the primary until the replica has caught up with the change.
+ * Does nothing when replica routing is disabled.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReadYourWritesTracker {
+
+    private final ReplicaDataSourceProperties properties;
+
+    private Cache<String, Boolean> recentWriters;
+
+    @PostConstruct
+    public void init() {
+        if (properties.isEnabled()) {
+            this.recentWriters = Caffeine.newBuilder()
+                    .expireAfterWrite(properties.getReadYourWritesWindow())
+                    .maximumSize(100_000)
+                    .build();
+        }
+    }
+
+    /**
+     * Marks the order owner and the user making the request as recent writers once
+     * the current transaction commits.
+     */
+    public void recordWrite(String ownerUserId) {
+        if (recentWriters == null) {
+            return;
+        }
+        String actingUserId = currentUserId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markWriters(ownerUserId, actingUserId);
+                }
+            });
+        } else {
+            markWriters(ownerUserId, actingUserId);
+        }
+    }
+
+    /**
+     * True when the user making the current request wrote recently.
+     */
+    boolean currentUserWroteRecently() {
+        if (recentWriters == null) {
+            return false;
+        }
+        String userId = currentUserId();
+        return userId != null && recentWriters.getIfPresent(userId) != null;
+    }
+
+    private void markWriters(String ownerUserId, String actingUserId) {
+        if (ownerUserId != null) {
+            recentWriters.put(ownerUserId, Boolean.TRUE);
+        }
+        if (actingUserId != null && !actingUserId.equals(ownerUserId)) {
+            recentWriters.put(actingUserId, Boolean.TRUE);
+        }
+    }
+
+    private static String currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getUserId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,126 @@
+package com.distributedsystem.orders.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how far the replica is behind the primary on its own thread, so a
+ * slow or hanging replica never delays a request. The replica is considered
+ * usable only while the last check succeeded recently and the lag was within
+ * {@code maxLag}.
+ */
+@Slf4j
+class ReplicaLagMonitor implements AutoCloseable {
+
+    /**
+     * Zero when the replica has replayed everything it received; otherwise the age
+     * of the last replayed transaction. An idle primary therefore does not look like lag.
+     * NULL when no WAL receiver is streaming from the primary: having replayed all it
+     * received says nothing then, since it is not receiving anything. Without
+     * {@code pg_read_all_stats} the receiver's status reads as NULL, so only its
+     * presence is checked in that case.
+     */
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver
+                                 WHERE status = 'streaming' OR status IS NULL) THEN NULL
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+            END
+            """;
+
+    private final DataSource replica;
+    private final long maxLagNanos;
+    private final long staleAfterNanos;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile double lagSeconds = Double.NaN;
+    private volatile long lastCheckedAt;
+    private volatile boolean failed = true;
+    private volatile boolean firstCheck = true;
+
+    ReplicaLagMonitor(DataSource replica, Duration maxLag, Duration checkInterval, MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.maxLagNanos = maxLag.toNanos();
+        this.staleAfterNanos = checkInterval.multipliedBy(3).toNanos();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("orders.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+                .description("Replication lag of the read replica (NaN while it cannot be reached, "
+                        + "+Inf while it is not streaming from the primary)")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        this.lastCheckedAt = System.nanoTime();
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    boolean isReplicaUsable() {
+        return !failed
+                && System.nanoTime() - lastCheckedAt < staleAfterNanos
+                && lagSeconds * 1e9 <= maxLagNanos;
+    }
+
+    /**
+     * Takes the replica out of rotation until the next successful check.
+     */
+    void markFailed(SQLException e) {
+        if (!failed || firstCheck) {
+            log.warn("Read replica unavailable, reading from the primary: {}", e.getMessage());
+        }
+        failed = true;
+        firstCheck = false;
+        lagSeconds = Double.NaN;
+    }
+
+    private void check() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(Math.max(1, (int) TimeUnit.NANOSECONDS.toSeconds(staleAfterNanos)));
+            double lag;
+            try (ResultSet result = statement.executeQuery(LAG_QUERY)) {
+                result.next();
+                lag = result.getDouble(1);
+                if (result.wasNull()) {
+                    lag = Double.POSITIVE_INFINITY;
+                }
+            }
+            boolean wasStreaming = !failed && lagSeconds != Double.POSITIVE_INFINITY;
+            if (lag == Double.POSITIVE_INFINITY && (wasStreaming || firstCheck)) {
+                log.warn("Read replica is not streaming from the primary, reading from the primary");
+            } else if (lag != Double.POSITIVE_INFINITY && !wasStreaming) {
+                log.info("Read replica available (lag {}s)", lag);
+            }
+            lagSeconds = lag;
+            failed = false;
+            firstCheck = false;
+            lastCheckedAt = System.nanoTime();
+        } catch (SQLException e) {
+            markFailed(e);
+        } catch (RuntimeException e) {
+            log.error("Replica lag check failed", e);
+            failed = true;
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,97 @@
+package com.distributedsystem.orders.datasource;
+
+import com.distributedsystem.orders.config.ReplicaDataSourceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+/**
+ * Connection source for read-only transactions (see {@code DataSourceConfig}):
+ * the replica, unless it is lagging or unreachable, or the current user has just
+ * written and would otherwise not see their own change.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWritesTracker readYourWrites;
+
+    private final Counter replicaReads;
+    private final Counter unavailableFallbacks;
+    private final Counter stickyFallbacks;
+    private final Counter errorFallbacks;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaDataSourceProperties properties,
+            ReadYourWritesTracker readYourWrites, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagMonitor = new ReplicaLagMonitor(replica, properties.getMaxLag(), properties.getLagCheckInterval(),
+                meterRegistry);
+        this.readYourWrites = readYourWrites;
+        this.replicaReads = readCounter(meterRegistry, "replica", "none");
+        this.unavailableFallbacks = readCounter(meterRegistry, "primary", "replica-unavailable");
+        this.stickyFallbacks = readCounter(meterRegistry, "primary", "read-your-writes");
+        this.errorFallbacks = readCounter(meterRegistry, "primary", "replica-error");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    /**
+     * Routed like {@link #getConnection()}; whether other credentials are accepted
+     * is up to the pool that serves the connection.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    @Override
+    public void close() {
+        lagMonitor.close();
+    }
+
+    private Connection route(ConnectionOpener opener) throws SQLException {
+        if (!lagMonitor.isReplicaUsable()) {
+            unavailableFallbacks.increment();
+            return opener.open(primary);
+        }
+        if (readYourWrites.currentUserWroteRecently()) {
+            stickyFallbacks.increment();
+            return opener.open(primary);
+        }
+        try {
+            Connection connection = opener.open(replica);
+            replicaReads.increment();
+            return connection;
+        } catch (SQLFeatureNotSupportedException e) {
+            // e.g. a pool that does not take other credentials; the replica is fine
+            throw e;
+        } catch (SQLException e) {
+            lagMonitor.markFailed(e);
+            errorFallbacks.increment();
+            return opener.open(primary);
+        }
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String target, String fallbackReason) {
+        return Counter.builder("orders.datasource.reads")
+                .description("Read-only transactions by the database that served them")
+                .tag("target", target)
+                .tag("fallback", fallbackReason)
+                .register(meterRegistry);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionOpener {
+        Connection open(DataSource dataSource) throws SQLException;
+    }
+}
@@ -0,0 +1,20 @@
+package com.distributedsystem.orders.dto;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only projection of an order item row, keyed by the order it belongs to.
+ */
+@Value
+public class OrderItemRow {
+    Long orderId;
+    Long id;
+    Long productId;
+    String productSku;
+    String productName;
+    Integer quantity;
+    BigDecimal unitPrice;
+    BigDecimal subtotal;
+}
@@ -0,0 +1,23 @@
+package com.distributedsystem.orders.dto;
+
+import com.distributedsystem.orders.model.OrderStatus;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of an order row, selected directly by the listing queries
+ * so no managed entity (and no dirty-checking snapshot) is created for it.
+ */
+@Value
+public class OrderRow {
+    Long id;
+    String userId;
+    String userEmail;
+    BigDecimal totalAmount;
+    OrderStatus status;
+    String notes;
+    LocalDateTime createdAt;
+    LocalDateTime updatedAt;
+}
@@ -0,0 +1,27 @@
+package com.distributedsystem.orders.dto;
+
+import com.distributedsystem.orders.model.PaymentConfirmationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Where an accepted payment callback stands, for Payments to poll after a 202.
+ * {@code lastError} holds the reason once the confirmation is FAILED.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentConfirmationDTO {
+    private Long orderId;
+    private String paymentId;
+    private PaymentConfirmationStatus status;
+    private int attempts;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,14 @@
+package com.distributedsystem.orders.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pending payment confirmations and when the oldest of them was accepted.
+ */
+@Value
+public class PaymentQueueSummary {
+    Long pending;
+    LocalDateTime oldestCreatedAt;
+}
@@ -1,10 +1,13 @@
 package com.distributedsystem.orders.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -17,4 +20,7 @@ public class ProductDTO {
     private Double price;
     private Integer stock;
     private Boolean active;
+
+    @JsonProperty("updated_at")
+    private Instant updatedAt;
 }
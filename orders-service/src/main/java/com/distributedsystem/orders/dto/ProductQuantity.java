@@ -0,0 +1,12 @@
+package com.distributedsystem.orders.dto;
+
+import lombok.Value;
+
+/**
+ * Total units of a product across a set of order items.
+ */
+@Value
+public class ProductQuantity {
+    Long productId;
+    Long quantity;
+}
@@ -0,0 +1,11 @@
+package com.distributedsystem.orders.exception;
+
+/**
+ * Another request changed or is changing the order at the same time; the same
+ * operation may succeed when retried.
+ */
+public class ConcurrentOrderUpdateException extends RuntimeException {
+    public ConcurrentOrderUpdateException(String message) {
+        super(message);
+    }
+}
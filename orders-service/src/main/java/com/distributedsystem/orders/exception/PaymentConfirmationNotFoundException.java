@@ -0,0 +1,7 @@
+package com.distributedsystem.orders.exception;
+
+public class PaymentConfirmationNotFoundException extends RuntimeException {
+    public PaymentConfirmationNotFoundException(Long orderId, String paymentId) {
+        super("No payment " + paymentId + " was accepted for order " + orderId);
+    }
+}
@@ -0,0 +1,7 @@
+package com.distributedsystem.orders.exception;
+
+public class PaymentInProgressException extends RuntimeException {
+    public PaymentInProgressException(Long orderId, String paymentId) {
+        super("Payment " + paymentId + " for order " + orderId + " is still being processed");
+    }
+}
@@ -0,0 +1,16 @@
+package com.distributedsystem.orders.exception;
+
+/**
+ * The payment can never be applied to the order as sent (wrong amount, order no
+ * longer payable, paymentId used elsewhere, stock refused); retrying it is
+ * pointless.
+ */
+public class PaymentRejectedException extends RuntimeException {
+    public PaymentRejectedException(String message) {
+        super(message);
+    }
+
+    public PaymentRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
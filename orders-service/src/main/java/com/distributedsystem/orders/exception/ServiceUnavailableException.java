@@ -0,0 +1,7 @@
+package com.distributedsystem.orders.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String service, Throwable cause) {
+        super(service + " Service is temporarily unavailable, please retry later", cause);
+    }
+}
@@ -0,0 +1,13 @@
+package com.distributedsystem.orders.exception;
+
+/**
+ * Products answered an update-stock request and refused it (4xx or
+ * {@code success: false}), so none of its deltas were applied. Timeouts and 5xx
+ * responses are not reported with this exception: the update may have gone
+ * through.
+ */
+public class StockUpdateRejectedException extends RuntimeException {
+    public StockUpdateRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,13 @@
+package com.distributedsystem.orders.exception;
+
+/**
+ * An update-stock request was sent (or may still be sent) but its outcome is
+ * unknown: a timeout, a 5xx or an unreadable response. Products may have applied
+ * it, so the caller must not undo anything that assumes it was not. Answered
+ * with 503 like any other unavailability.
+ */
+public class StockUpdateUnconfirmedException extends ServiceUnavailableException {
+    public StockUpdateUnconfirmedException(Throwable cause) {
+        super("Products", cause);
+    }
+}
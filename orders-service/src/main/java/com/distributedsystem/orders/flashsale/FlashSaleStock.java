@@ -0,0 +1,227 @@
+package com.distributedsystem.orders.flashsale;
+
+import com.distributedsystem.orders.config.FlashSaleProperties;
+import com.distributedsystem.orders.dto.ProductDTO;
+import com.distributedsystem.orders.dto.ProductQuantity;
+import com.distributedsystem.orders.exception.InsufficientStockException;
+import com.distributedsystem.orders.model.OrderStatus;
+import com.distributedsystem.orders.repository.OrderItemRepository;
+import com.distributedsystem.orders.security.ServiceTokenProvider;
+import com.distributedsystem.orders.service.ProductServiceClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Flash-sale mode: available stock of the configured products is tracked in
+ * {@link StripedStockCounter}s, so an order for a sold-out product is rejected
+ * before anything is looked up remotely. Creating an order reserves its units,
+ * cancelling it gives them back, and paying it changes nothing (the reservation
+ * becomes a sale).
+ * <p>
+ * The counters are seeded, and then reconciled every {@code reconcile-interval},
+ * as Products stock minus the units in unpaid orders and in orders still being
+ * created. Reservations on other
+ * instances are only seen at reconciliation, so this is an admission gate; the
+ * stock decrement at payment remains the authority. Until a product has been
+ * seeded, its orders are not gated.
+ */
+@Component
+@EnableConfigurationProperties(FlashSaleProperties.class)
+@RequiredArgsConstructor
+@Slf4j
+public class FlashSaleStock {
+
+    private final FlashSaleProperties properties;
+    private final ProductServiceClient productServiceClient;
+    private final OrderItemRepository orderItemRepository;
+    private final ServiceTokenProvider serviceTokens;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Long, Tracked> products = new HashMap<>();
+
+    private volatile boolean running;
+    private Thread reconciler;
+
+    @PostConstruct
+    public void start() {
+        if (properties.getProductIds().isEmpty()) {
+            return;
+        }
+        for (Long productId : properties.getProductIds()) {
+            Tracked tracked = new Tracked(new StripedStockCounter(properties.getStripes()),
+                    reservations(productId, "accepted"), reservations(productId, "rejected"));
+            Gauge.builder("flash.sale.stock.available", tracked.counter, StripedStockCounter::available)
+                    .description("Units of a flash-sale product still available for new orders")
+                    .tag("product", productId.toString())
+                    .register(meterRegistry);
+            products.put(productId, tracked);
+        }
+
+        running = true;
+        reconciler = new Thread(this::reconcileLoop, "flash-sale-reconciler");
+        reconciler.setDaemon(true);
+        reconciler.start();
+        log.info("Flash-sale mode on for products {}", properties.getProductIds());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (reconciler != null) {
+            reconciler.interrupt();
+        }
+    }
+
+    /**
+     * Reserves the units of every flash-sale product in {@code quantities}
+     * (productId to units), all or nothing. Throws {@link InsufficientStockException}
+     * for the first product that is sold out. The reservation must be confirmed
+     * once the order is committed, or cancelled if it is not created.
+     */
+    public Reservation reserve(Map<Long, Integer> quantities) {
+        if (products.isEmpty()) {
+            return Reservation.NONE;
+        }
+        List<Reserved> reserved = new ArrayList<>();
+        for (Map.Entry<Long, Integer> item : quantities.entrySet()) {
+            Tracked tracked = products.get(item.getKey());
+            if (tracked == null || !tracked.seeded) {
+                continue;
+            }
+            int units = item.getValue();
+            if (!tracked.counter.tryReserve(units)) {
+                tracked.rejected.increment();
+                reserved.forEach(done -> {
+                    done.tracked().counter.release(done.units());
+                    done.tracked().pending.add(-done.units());
+                });
+                throw new InsufficientStockException("#" + item.getKey(), units,
+                        (int) Math.min(Integer.MAX_VALUE, tracked.counter.available()));
+            }
+            tracked.pending.add(units);
+            tracked.accepted.increment();
+            reserved.add(new Reserved(tracked, units));
+        }
+        return new Reservation(reserved);
+    }
+
+    /** Gives back the units of a committed order that was cancelled. */
+    public void restore(Map<Long, Integer> quantities) {
+        quantities.forEach((productId, units) -> {
+            Tracked tracked = products.get(productId);
+            if (tracked != null && tracked.seeded) {
+                tracked.counter.release(units);
+            }
+        });
+    }
+
+    private void reconcileLoop() {
+        while (running) {
+            try {
+                reconcile();
+            } catch (RuntimeException e) {
+                log.warn("Flash-sale stock reconciliation failed: {}", e.getMessage());
+            }
+
+            try {
+                Thread.sleep(properties.getReconcileInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void reconcile() {
+        Map<Long, ProductDTO> stock = productServiceClient.getProducts(products.keySet(), serviceTokens.getToken());
+        Map<Long, Long> unpaid = new HashMap<>();
+        for (ProductQuantity reserved : orderItemRepository.sumQuantitiesByStatus(
+                OrderStatus.CREADO, products.keySet())) {
+            unpaid.put(reserved.getProductId(), reserved.getQuantity());
+        }
+
+        // orders committed after the query above are still pending here, except for the few just in between
+        products.forEach((productId, tracked) -> {
+            ProductDTO product = stock.get(productId);
+            long remoteStock = product != null && product.getStock() != null ? product.getStock() : 0;
+            long available = remoteStock - unpaid.getOrDefault(productId, 0L) - tracked.pending.sum();
+            long drift = available - tracked.counter.available();
+            tracked.counter.reset(available);
+            if (!tracked.seeded) {
+                tracked.seeded = true;
+                log.info("Flash-sale product {} seeded with {} available units", productId, Math.max(0, available));
+            } else if (drift != 0) {
+                log.debug("Flash-sale product {} reconciled to {} available units (drift {})",
+                        productId, Math.max(0, available), drift);
+            }
+        });
+    }
+
+    private Counter reservations(Long productId, String outcome) {
+        return Counter.builder("flash.sale.reservations")
+                .description("Flash-sale reservations by outcome; rejected ones never reach the Products Service")
+                .tag("product", productId.toString())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /** Units taken by {@link #reserve} for an order that is being created. */
+    public static final class Reservation {
+
+        private static final Reservation NONE = new Reservation(List.of());
+
+        private final List<Reserved> reserved;
+
+        private Reservation(List<Reserved> reserved) {
+            this.reserved = reserved;
+        }
+
+        /** The order was committed: its units now show up as an unpaid order. */
+        public void confirm() {
+            reserved.forEach(done -> done.tracked().pending.add(-done.units()));
+        }
+
+        /** The order was not created: its units become available again. */
+        public void cancel() {
+            reserved.forEach(done -> {
+                done.tracked().counter.release(done.units());
+                done.tracked().pending.add(-done.units());
+            });
+        }
+    }
+
+    private record Reserved(Tracked tracked, int units) {
+    }
+
+    private static final class Tracked {
+
+        private final StripedStockCounter counter;
+
+        /** Reserved units of orders not committed yet, which reconciliation cannot see in the database. */
+        private final LongAdder pending = new LongAdder();
+
+        private final Counter accepted;
+        private final Counter rejected;
+
+        private volatile boolean seeded;
+
+        private Tracked(StripedStockCounter counter, Counter accepted, Counter rejected) {
+            this.counter = counter;
+            this.accepted = accepted;
+            this.rejected = rejected;
+        }
+    }
+}
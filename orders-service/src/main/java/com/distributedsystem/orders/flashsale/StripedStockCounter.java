@@ -0,0 +1,126 @@
+package com.distributedsystem.orders.flashsale;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Available units of one product, split over several independently updated
+ * stripes so concurrent reservations do not all compete for one memory
+ * location. A thread reserves from "its" stripe and only looks at the others
+ * when that one runs out; units never go below zero. Everything is a plain CAS,
+ * no locks.
+ */
+final class StripedStockCounter {
+
+    /** Stripes are 128 bytes apart so they do not share a cache line. */
+    private static final int PADDING = 16;
+
+    private final AtomicLongArray cells;
+    private final int stripes;
+
+    /** Set once every stripe was seen empty, so further rejections cost one read. */
+    private volatile boolean soldOut;
+
+    StripedStockCounter(int stripes) {
+        this.stripes = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.cells = new AtomicLongArray(this.stripes * PADDING);
+    }
+
+    /** Takes {@code units} if that many are available, all or nothing. */
+    boolean tryReserve(int units) {
+        if (soldOut) {
+            return false;
+        }
+        int home = home();
+        for (int i = 0; i < stripes; i++) {
+            int cell = ((home + i) & (stripes - 1)) * PADDING;
+            long available = cells.get(cell);
+            while (available >= units) {
+                long witness = cells.compareAndExchange(cell, available, available - units);
+                if (witness == available) {
+                    return true;
+                }
+                available = witness;
+            }
+        }
+        if (units > 1 && reserveAcrossStripes(units, home)) {
+            return true;
+        }
+        if (available() == 0) {
+            soldOut = true;
+            // a release that raced with the scan above may have found the flag still clear
+            if (available() > 0) {
+                soldOut = false;
+            }
+        }
+        return false;
+    }
+
+    void release(int units) {
+        cells.getAndAdd(home() * PADDING, units);
+        soldOut = false;
+    }
+
+    long available() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.get(i * PADDING);
+        }
+        return total;
+    }
+
+    /** Units left in each stripe, read one stripe at a time. */
+    long[] stripeUnits() {
+        long[] units = new long[stripes];
+        for (int i = 0; i < stripes; i++) {
+            units[i] = cells.get(i * PADDING);
+        }
+        return units;
+    }
+
+    /**
+     * Spreads {@code units} evenly over the stripes. Reservations running at the
+     * same time may land on either side of the reset.
+     */
+    void reset(long units) {
+        long share = Math.max(0, units) / stripes;
+        long remainder = Math.max(0, units) % stripes;
+        for (int i = 0; i < stripes; i++) {
+            cells.set(i * PADDING, share + (i < remainder ? 1 : 0));
+        }
+        soldOut = units <= 0;
+    }
+
+    /** No single stripe had enough: gather from several, or give everything back. */
+    private boolean reserveAcrossStripes(int units, int home) {
+        long missing = units;
+        long[] taken = new long[stripes];
+        for (int i = 0; i < stripes && missing > 0; i++) {
+            int stripe = (home + i) & (stripes - 1);
+            long available = cells.get(stripe * PADDING);
+            while (available > 0 && missing > 0) {
+                long take = Math.min(available, missing);
+                long witness = cells.compareAndExchange(stripe * PADDING, available, available - take);
+                if (witness == available) {
+                    taken[stripe] += take;
+                    missing -= take;
+                    break;
+                }
+                available = witness;
+            }
+        }
+        if (missing == 0) {
+            return true;
+        }
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            if (taken[stripe] > 0) {
+                cells.getAndAdd(stripe * PADDING, taken[stripe]);
+            }
+        }
+        return false;
+    }
+
+    private int home() {
+        long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) (id >>> 32) & (stripes - 1);
+    }
+}
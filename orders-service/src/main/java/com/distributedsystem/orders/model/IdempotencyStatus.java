@@ -0,0 +1,6 @@
+package com.distributedsystem.orders.model;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
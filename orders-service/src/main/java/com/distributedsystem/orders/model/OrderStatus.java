@@ -1,5 +1,6 @@
 package com.distributedsystem.orders.model;
 
+import java.util.EnumSet;
 import java.util.Set;
 import java.util.Map;
 import java.util.HashMap;
@@ -48,6 +49,20 @@ public enum OrderStatus {
         return ALLOWED_TRANSITIONS.getOrDefault(this, Set.of());
     }
 
+    /**
+     * Statuses an order can be moved to {@code targetStatus} from, i.e. those whose
+     * {@link #canTransitionTo} accepts it (including the target itself).
+     */
+    public static Set<OrderStatus> getAllowedSources(OrderStatus targetStatus) {
+        Set<OrderStatus> sources = EnumSet.noneOf(OrderStatus.class);
+        for (OrderStatus status : values()) {
+            if (status.canTransitionTo(targetStatus)) {
+                sources.add(status);
+            }
+        }
+        return sources;
+    }
+
     public boolean isFinalState() {
         Set<OrderStatus> allowedTargets = ALLOWED_TRANSITIONS.get(this);
         return allowedTargets == null || allowedTargets.isEmpty();
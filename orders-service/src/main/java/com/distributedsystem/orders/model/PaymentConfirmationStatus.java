@@ -0,0 +1,7 @@
+package com.distributedsystem.orders.model;
+
+public enum PaymentConfirmationStatus {
+    PENDING,
+    APPLIED,
+    FAILED
+}
@@ -0,0 +1,52 @@
+package com.distributedsystem.orders.repository;
+
+import com.distributedsystem.orders.model.IdempotencyRecord;
+import com.distributedsystem.orders.model.IdempotencyStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Claims the key for the caller. Returns 1 when the key was free, 0 when another
+     * request already holds or has completed it.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, request_hash, status, created_at, expires_at) "
+            + "VALUES (:key, :requestHash, 'IN_PROGRESS', :createdAt, :expiresAt) "
+            + "ON CONFLICT (idempotency_key) DO NOTHING", nativeQuery = true)
+    int claim(@Param("key") String key, @Param("requestHash") String requestHash,
+            @Param("createdAt") LocalDateTime createdAt, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Completes the key only if it is still held by the claim made at
+     * {@code claimedAt}. Returns 0 when the claim was released (and possibly
+     * retaken) in the meantime.
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = :status, r.responseBody = :responseBody, "
+            + "r.expiresAt = :expiresAt WHERE r.key = :key AND r.createdAt = :claimedAt "
+            + "AND r.status = com.distributedsystem.orders.model.IdempotencyStatus.IN_PROGRESS")
+    int completeClaim(@Param("key") String key, @Param("claimedAt") LocalDateTime claimedAt,
+            @Param("status") IdempotencyStatus status, @Param("responseBody") String responseBody,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key AND r.createdAt = :claimedAt "
+            + "AND r.status = com.distributedsystem.orders.model.IdempotencyStatus.IN_PROGRESS")
+    int releaseClaim(@Param("key") String key, @Param("claimedAt") LocalDateTime claimedAt);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key AND r.status = :status")
+    int deleteByKeyAndStatus(@Param("key") String key, @Param("status") IdempotencyStatus status);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,56 @@
+package com.distributedsystem.orders.repository;
+
+import com.distributedsystem.orders.model.NotificationOutbox;
+import com.distributedsystem.orders.model.NotificationOutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    @Query(value = "SELECT * FROM notification_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now "
+            + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<NotificationOutbox> lockNextBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE NotificationOutbox n SET n.status = :status, n.sentAt = :sentAt, n.lastError = NULL "
+            + "WHERE n.id IN :ids")
+    int markDelivered(@Param("ids") List<Long> ids,
+            @Param("status") NotificationOutboxStatus status,
+            @Param("sentAt") LocalDateTime sentAt);
+
+    /**
+     * Records a failed delivery, as long as the row is still held under the lease
+     * it was claimed with. A row whose lease ran out may have been claimed and
+     * updated by another dispatcher since, so this returns 0 instead of writing
+     * over it.
+     */
+    @Modifying
+    @Query("UPDATE NotificationOutbox n SET n.attempts = :attempts, n.status = :status, "
+            + "n.nextAttemptAt = :nextAttemptAt, n.lastError = :lastError "
+            + "WHERE n.id = :id AND n.nextAttemptAt = :leasedUntil")
+    int recordFailedAttempt(@Param("id") Long id,
+            @Param("leasedUntil") LocalDateTime leasedUntil,
+            @Param("attempts") int attempts,
+            @Param("status") NotificationOutboxStatus status,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+            @Param("lastError") String lastError);
+
+    @Modifying
+    @Query("UPDATE NotificationOutbox n SET n.nextAttemptAt = :now "
+            + "WHERE n.id IN :ids AND n.nextAttemptAt = :leasedUntil")
+    int releaseLease(@Param("ids") List<Long> ids,
+            @Param("leasedUntil") LocalDateTime leasedUntil,
+            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox n WHERE n.status = :status AND n.sentAt < :before")
+    int deleteByStatusAndSentAtBefore(@Param("status") NotificationOutboxStatus status,
+            @Param("before") LocalDateTime before);
+}
@@ -1,9 +1,28 @@
 package com.distributedsystem.orders.repository;
 
+import com.distributedsystem.orders.dto.OrderItemRow;
+import com.distributedsystem.orders.dto.ProductQuantity;
 import com.distributedsystem.orders.model.OrderItem;
+import com.distributedsystem.orders.model.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    @Query("SELECT new com.distributedsystem.orders.dto.OrderItemRow(i.order.id, i.id, i.productId, "
+            + "i.productSku, i.productName, i.quantity, i.unitPrice, i.subtotal) "
+            + "FROM OrderItem i WHERE i.order.id IN :orderIds ORDER BY i.id")
+    List<OrderItemRow> findRowsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("SELECT new com.distributedsystem.orders.dto.ProductQuantity(i.productId, SUM(i.quantity)) "
+            + "FROM OrderItem i WHERE i.order.status = :status AND i.productId IN :productIds "
+            + "GROUP BY i.productId")
+    List<ProductQuantity> sumQuantitiesByStatus(@Param("status") OrderStatus status,
+            @Param("productIds") Collection<Long> productIds);
 }
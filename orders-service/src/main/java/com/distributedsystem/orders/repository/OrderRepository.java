@@ -1,25 +1,100 @@
 package com.distributedsystem.orders.repository;
 
+import com.distributedsystem.orders.dto.OrderRow;
 import com.distributedsystem.orders.model.Order;
 import com.distributedsystem.orders.model.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
-    Page<Order> findByUserId(String userId, Pageable pageable);
+    String ORDER_ROW = "SELECT new com.distributedsystem.orders.dto.OrderRow(o.id, o.userId, o.userEmail, "
+            + "o.totalAmount, o.status, o.notes, o.createdAt, o.updatedAt) FROM Order o ";
 
-    Page<Order> findByUserIdAndStatus(String userId, OrderStatus status, Pageable pageable);
+    @Query(value = ORDER_ROW + "WHERE o.userId = :userId",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.userId = :userId")
+    Page<OrderRow> findRowsByUserId(@Param("userId") String userId, Pageable pageable);
 
-    Page<Order> findByStatus(OrderStatus status, Pageable pageable);
+    @Query(value = ORDER_ROW + "WHERE o.userId = :userId AND o.status = :status",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.userId = :userId AND o.status = :status")
+    Page<OrderRow> findRowsByUserIdAndStatus(@Param("userId") String userId, @Param("status") OrderStatus status,
+            Pageable pageable);
+
+    @Query(value = ORDER_ROW + "WHERE o.status = :status",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.status = :status")
+    Page<OrderRow> findRowsByStatus(@Param("status") OrderStatus status, Pageable pageable);
+
+    @Query(value = ORDER_ROW, countQuery = "SELECT COUNT(o) FROM Order o")
+    Page<OrderRow> findAllRows(Pageable pageable);
+
+    @Query(ORDER_ROW + "WHERE o.id = :id")
+    Optional<OrderRow> findRowById(@Param("id") Long id);
+
+    @Query(ORDER_ROW + "WHERE o.paymentId = :paymentId")
+    Optional<OrderRow> findRowByPaymentId(@Param("paymentId") String paymentId);
+
+    /**
+     * Records {@code paymentId} on an unpaid order before stock is touched, so only
+     * one callback per order gets past this point. A claim left behind by a
+     * crashed request can be retaken by any payment once it is older than
+     * {@code staleBefore}; Payments sends a new paymentId on every attempt.
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.paymentId = :paymentId, o.updatedAt = :now "
+            + "WHERE o.id = :id AND o.status = :status "
+            + "AND (o.paymentId IS NULL OR o.updatedAt < :staleBefore)")
+    int claimPayment(@Param("id") Long id, @Param("paymentId") String paymentId,
+            @Param("status") OrderStatus status, @Param("now") LocalDateTime now,
+            @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.paymentId = NULL "
+            + "WHERE o.id = :id AND o.paymentId = :paymentId AND o.status = :status")
+    int releasePayment(@Param("id") Long id, @Param("paymentId") String paymentId,
+            @Param("status") OrderStatus status);
+
+    /**
+     * Moves the order to {@code status} only while it is in one of
+     * {@code allowedFrom} (and, unless {@code userId} is null, belongs to that
+     * user). Returns 0 if it was not in a state that allows the transition.
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now "
+            + "WHERE o.id = :id AND o.status IN :allowedFrom AND (:userId IS NULL OR o.userId = :userId)")
+    int updateStatus(@Param("id") Long id, @Param("userId") String userId,
+            @Param("allowedFrom") Collection<OrderStatus> allowedFrom, @Param("status") OrderStatus status,
+            @Param("now") LocalDateTime now);
+
+    @Query(ORDER_ROW + "WHERE o.userId = :userId AND (o.createdAt, o.id) < (:createdAt, :id) "
+            + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderRow> findRowsByUserIdBefore(@Param("userId") String userId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    @Query(ORDER_ROW + "WHERE o.userId = :userId AND o.status = :status "
+            + "AND (o.createdAt, o.id) < (:createdAt, :id) ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderRow> findRowsByUserIdAndStatusBefore(@Param("userId") String userId,
+            @Param("status") OrderStatus status,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    @Query(ORDER_ROW + "WHERE (o.createdAt, o.id) < (:createdAt, :id) ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderRow> findAllRowsBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+            Pageable pageable);
+
+    @Query(ORDER_ROW + "WHERE o.status = :status AND (o.createdAt, o.id) < (:createdAt, :id) "
+            + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderRow> findRowsByStatusBefore(@Param("status") OrderStatus status,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
 
     @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id = :id")
     Optional<Order> findByIdWithItems(@Param("id") Long id);
@@ -0,0 +1,91 @@
+package com.distributedsystem.orders.repository;
+
+import com.distributedsystem.orders.dto.PaymentQueueSummary;
+import com.distributedsystem.orders.model.PaymentConfirmation;
+import com.distributedsystem.orders.model.PaymentConfirmationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PaymentConfirmationRepository extends JpaRepository<PaymentConfirmation, Long> {
+
+    /**
+     * Queues the confirmation only if the order exists, has exactly this total, can
+     * still be paid and is not being paid by another payment (queued, or claimed
+     * since {@code staleBefore}); a paymentId that is already queued is left alone.
+     * Returns 0 when nothing was inserted. Two payments for the same order racing
+     * past the NOT EXISTS check are stopped by the unique index on pending rows
+     * per order ({@code db/indexes.sql}), which the conflict clause also covers.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO payment_confirmations (id, order_id, payment_id, amount, payment_method, "
+            + "transaction_reference, status, attempts, next_attempt_at, created_at) "
+            + "SELECT nextval('payment_confirmations_seq'), o.id, :paymentId, :amount, :paymentMethod, "
+            + ":transactionReference, 'PENDING', 0, :now, :now FROM orders o "
+            + "WHERE o.id = :orderId AND o.total_amount = :amount AND o.status IN (:payableStatuses) "
+            + "AND (o.payment_id IS NULL OR o.payment_id = :paymentId OR o.updated_at < :staleBefore) "
+            + "AND NOT EXISTS (SELECT 1 FROM payment_confirmations c WHERE c.order_id = o.id "
+            + "AND c.status = 'PENDING' AND c.payment_id <> :paymentId) "
+            + "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int enqueue(@Param("orderId") Long orderId,
+            @Param("paymentId") String paymentId,
+            @Param("amount") BigDecimal amount,
+            @Param("paymentMethod") String paymentMethod,
+            @Param("transactionReference") String transactionReference,
+            @Param("payableStatuses") Collection<String> payableStatuses,
+            @Param("now") LocalDateTime now,
+            @Param("staleBefore") LocalDateTime staleBefore);
+
+    Optional<PaymentConfirmation> findByPaymentId(String paymentId);
+
+    /**
+     * Written whoever holds the row: the payment is applied, so any other worker
+     * that claimed it after the lease ran out can only have found it applied too.
+     */
+    @Modifying
+    @Query("UPDATE PaymentConfirmation p SET p.status = :status, p.completedAt = :completedAt, "
+            + "p.lastError = NULL WHERE p.id = :id")
+    int markApplied(@Param("id") Long id,
+            @Param("status") PaymentConfirmationStatus status,
+            @Param("completedAt") LocalDateTime completedAt);
+
+    /**
+     * Records a failed attempt (a retry or a final FAILED), as long as the row is
+     * still held under the lease it was claimed with. A row whose lease ran out
+     * may have been claimed and updated by another worker since, so this returns
+     * 0 instead of writing over it.
+     */
+    @Modifying
+    @Query("UPDATE PaymentConfirmation p SET p.status = :status, p.attempts = :attempts, "
+            + "p.nextAttemptAt = :nextAttemptAt, p.completedAt = :completedAt, p.lastError = :lastError "
+            + "WHERE p.id = :id AND p.nextAttemptAt = :leasedUntil")
+    int recordFailedAttempt(@Param("id") Long id,
+            @Param("leasedUntil") LocalDateTime leasedUntil,
+            @Param("status") PaymentConfirmationStatus status,
+            @Param("attempts") int attempts,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+            @Param("completedAt") LocalDateTime completedAt,
+            @Param("lastError") String lastError);
+
+    @Query(value = "SELECT * FROM payment_confirmations WHERE status = 'PENDING' AND next_attempt_at <= :now "
+            + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<PaymentConfirmation> lockNextBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Query("SELECT new com.distributedsystem.orders.dto.PaymentQueueSummary(COUNT(p), MIN(p.createdAt)) "
+            + "FROM PaymentConfirmation p WHERE p.status = :status")
+    PaymentQueueSummary summarize(@Param("status") PaymentConfirmationStatus status);
+
+    @Modifying
+    @Query("DELETE FROM PaymentConfirmation p WHERE p.status = :status AND p.completedAt < :before")
+    int deleteByStatusAndCompletedAtBefore(@Param("status") PaymentConfirmationStatus status,
+            @Param("before") LocalDateTime before);
+}
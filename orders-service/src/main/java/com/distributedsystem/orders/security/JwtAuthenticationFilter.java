@@ -1,5 +1,6 @@
 package com.distributedsystem.orders.security;
 
+import com.distributedsystem.orders.timing.RequestTimings;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -33,9 +34,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = extractJwtFromRequest(request);
 
             if (StringUtils.hasText(jwt)) {
-                String userId = jwtValidator.getUserIdFromToken(jwt);
-                String userEmail = jwtValidator.getUserEmailFromToken(jwt);
-                String userRole = jwtValidator.getUserRoleFromToken(jwt);
+                JwtClaims claims;
+                try (RequestTimings.Stopwatch ignored = RequestTimings.time(RequestTimings.Segment.JWT)) {
+                    claims = jwtValidator.parseToken(jwt);
+                }
+                String userId = claims.getUserId();
+                String userEmail = claims.getEmail();
+                String userRole = claims.getRole();
 
                 if (userId != null) {
                     UserPrincipal userPrincipal = UserPrincipal.builder()
@@ -66,7 +71,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         return path.contains("/payment-callback") ||
                 path.equals("/api/health") ||
-                path.startsWith("/actuator/");
+                (path.startsWith("/actuator/") && "GET".equals(request.getMethod()));
     }
 
     private String extractJwtFromRequest(HttpServletRequest request) {
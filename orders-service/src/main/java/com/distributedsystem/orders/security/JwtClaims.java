@@ -0,0 +1,19 @@
+package com.distributedsystem.orders.security;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * The claims this service needs from a verified token, extracted once so the
+ * token does not have to be parsed again for each of them.
+ */
+@Value
+@Builder
+public class JwtClaims {
+    String userId;
+    String email;
+    String role;
+    Instant expiresAt;
+}
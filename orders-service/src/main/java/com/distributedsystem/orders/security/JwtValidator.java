@@ -1,54 +1,167 @@
 package com.distributedsystem.orders.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
 
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class JwtValidator {
 
+    private final MeterRegistry meterRegistry;
+
     @Value("${jwt.secret}")
     private String secret;
 
+    @Value("${jwt.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${jwt.cache.max-ttl:PT5M}")
+    private Duration cacheMaxTtl;
+
     private SecretKey key;
 
+    private JwtParser parser;
+
+    private Cache<String, JwtClaims> verifiedTokens;
+
+    private Timer validVerifications;
+
+    private Timer invalidVerifications;
+
     @PostConstruct
     public void init() {
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(key)
+                .build();
+
+        this.validVerifications = verificationTimer("valid");
+        this.invalidVerifications = verificationTimer("invalid");
+
+        if (cacheEnabled) {
+            this.verifiedTokens = Caffeine.newBuilder()
+                    .maximumSize(cacheMaxSize)
+                    .expireAfter(new ExpireAtTokenExpiry(cacheMaxTtl))
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified-tokens");
+        }
     }
 
     public Claims validateToken(String token) {
+        long start = System.nanoTime();
         try {
-            return Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            validVerifications.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return claims;
         } catch (JwtException | IllegalArgumentException e) {
+            invalidVerifications.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             log.error("Invalid JWT token: {}", e.getMessage());
             throw new RuntimeException("Invalid or expired JWT token", e);
         }
     }
 
+    /**
+     * Verifies the token once and returns the claims used to build the principal.
+     * Verified tokens are remembered, keyed by their SHA-256 digest, until they
+     * expire, so a client polling with the same token is not re-verified each time.
+     */
+    public JwtClaims parseToken(String token) {
+        if (verifiedTokens == null) {
+            return toJwtClaims(validateToken(token));
+        }
+        return verifiedTokens.get(digest(token), k -> toJwtClaims(validateToken(token)));
+    }
+
     public String getUserIdFromToken(String token) {
-        Claims claims = validateToken(token);
-        return claims.getSubject();
+        return parseToken(token).getUserId();
     }
 
     public String getUserEmailFromToken(String token) {
-        Claims claims = validateToken(token);
-        return claims.get("correo", String.class);
+        return parseToken(token).getEmail();
     }
 
     public String getUserRoleFromToken(String token) {
-        Claims claims = validateToken(token);
-        return claims.get("rol", String.class);
+        return parseToken(token).getRole();
+    }
+
+    private Timer verificationTimer(String result) {
+        return Timer.builder("jwt.verification")
+                .description("JWT signature verification and parsing (cache misses only)")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private JwtClaims toJwtClaims(Claims claims) {
+        return JwtClaims.builder()
+                .userId(claims.getSubject())
+                .email(claims.get("correo", String.class))
+                .role(claims.get("rol", String.class))
+                .expiresAt(claims.getExpiration() != null ? claims.getExpiration().toInstant() : null)
+                .build();
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Evicts a cached token when it expires, or after {@code maxTtl} if that comes first.
+     */
+    private static class ExpireAtTokenExpiry implements Expiry<String, JwtClaims> {
+
+        private final long maxTtlNanos;
+
+        ExpireAtTokenExpiry(Duration maxTtl) {
+            this.maxTtlNanos = maxTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String key, JwtClaims claims, long currentTime) {
+            if (claims.getExpiresAt() == null) {
+                return maxTtlNanos;
+            }
+            long untilExpiry = Duration.between(Instant.now(), claims.getExpiresAt()).toNanos();
+            return Math.max(0, Math.min(untilExpiry, maxTtlNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, JwtClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, JwtClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,58 @@
+package com.distributedsystem.orders.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Issues the token orders-service itself uses for calls that are not made on
+ * behalf of a user, such as syncing the product catalog. It is signed with the
+ * shared JWT secret and carries the plain {@code user} role.
+ */
+@Component
+public class ServiceTokenProvider {
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    @Value("${jwt.service-token.subject:orders-service}")
+    private String subject;
+
+    @Value("${jwt.service-token.ttl:PT10M}")
+    private Duration ttl;
+
+    private SecretKey key;
+
+    private String token;
+
+    private Instant renewAt = Instant.MIN;
+
+    @PostConstruct
+    public void init() {
+        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Returns the current token, issuing a new one once half of its lifetime has passed. */
+    public synchronized String getToken() {
+        Instant now = Instant.now();
+        if (now.isAfter(renewAt)) {
+            token = Jwts.builder()
+                    .subject(subject)
+                    .claim("rol", "user")
+                    .issuedAt(Date.from(now))
+                    .expiration(Date.from(now.plus(ttl)))
+                    .signWith(key)
+                    .compact();
+            renewAt = now.plus(ttl.dividedBy(2));
+        }
+        return token;
+    }
+}
@@ -0,0 +1,50 @@
+package com.distributedsystem.orders.service;
+
+import com.distributedsystem.orders.exception.ServiceUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead and circuit breaker in front of one downstream service, configured
+ * under {@code resilience4j.*.instances.<name>}. Calls that are not let through
+ * fail immediately with {@link ServiceUnavailableException}; bulkhead rejections
+ * are not counted as failures by the breaker. Breaker and bulkhead state are
+ * exported by Resilience4j itself; bulkhead rejections are counted here as
+ * {@code resilience4j.bulkhead.rejected.calls}.
+ */
+class DownstreamGuard {
+
+    private final String serviceName;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+
+    DownstreamGuard(String instance, String serviceName, CircuitBreakerRegistry circuitBreakerRegistry,
+            BulkheadRegistry bulkheadRegistry, MeterRegistry meterRegistry) {
+        this.serviceName = serviceName;
+        this.bulkhead = bulkheadRegistry.bulkhead(instance);
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(instance);
+
+        Counter rejected = Counter.builder("resilience4j.bulkhead.rejected.calls")
+                .description("Calls rejected because the bulkhead was full")
+                .tag("name", instance)
+                .register(meterRegistry);
+        bulkhead.getEventPublisher().onCallRejected(event -> rejected.increment());
+    }
+
+    <T> T call(Supplier<T> call) {
+        try {
+            return Bulkhead.decorateSupplier(bulkhead,
+                    CircuitBreaker.decorateSupplier(circuitBreaker, call)).get();
+        } catch (CallNotPermittedException | BulkheadFullException e) {
+            throw new ServiceUnavailableException(serviceName, e);
+        }
+    }
+}
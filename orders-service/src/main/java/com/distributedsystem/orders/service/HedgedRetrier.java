@@ -0,0 +1,216 @@
+package com.distributedsystem.orders.service;
+
+import com.distributedsystem.orders.config.ProductReadProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs an idempotent read with retries and hedging. Only transport errors and
+ * 5xx answers are retried, after a jittered exponential backoff. When hedging is
+ * on, the attempt runs on {@code executor} and a second one is started if it has
+ * not answered within the recent p95 latency; whichever succeeds first wins.
+ * Retries and hedges both spend from the same {@link RetryBudget}.
+ */
+@Slf4j
+class HedgedRetrier {
+
+    private static final long HEDGE_DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ProductReadProperties properties;
+    private final Executor executor;
+    private final RetryBudget budget;
+
+    private final Timer attemptLatency;
+    private final Counter retries;
+    private final Counter hedges;
+    private final Counter hedgeWins;
+    private final Counter budgetExhausted;
+
+    private volatile long hedgeDelayNanos;
+    private volatile long hedgeDelayRefreshedAt;
+
+    HedgedRetrier(String name, ProductReadProperties properties, Executor executor, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.executor = executor;
+        ProductReadProperties.Budget budgetProperties = properties.getBudget();
+        this.budget = new RetryBudget(
+                budgetProperties.getRatio(), budgetProperties.getMinPerSecond(), budgetProperties.getMaxBalance());
+
+        this.attemptLatency = Timer.builder("downstream.read.attempt")
+                .description("Latency of single read attempts, used to derive the hedge delay")
+                .tag("service", name)
+                .publishPercentiles(properties.getHedging().getPercentile())
+                .register(meterRegistry);
+        this.retries = extraAttempts(name, "retry", meterRegistry);
+        this.hedges = extraAttempts(name, "hedge", meterRegistry);
+        this.hedgeWins = Counter.builder("downstream.read.hedge.wins")
+                .description("Hedged reads answered by the hedge rather than the first attempt")
+                .tag("service", name)
+                .register(meterRegistry);
+        this.budgetExhausted = Counter.builder("downstream.read.budget.exhausted")
+                .description("Retries or hedges skipped because the retry budget was spent")
+                .tag("service", name)
+                .register(meterRegistry);
+        this.hedgeDelayNanos = properties.getHedging().getInitialDelay().toNanos();
+    }
+
+    <T> T execute(Supplier<T> read) {
+        budget.recordRead();
+        int maxAttempts = properties.getRetry().getMaxAttempts();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return hedged(read);
+            } catch (RuntimeException e) {
+                if (!isRetryable(e) || attempt >= maxAttempts) {
+                    throw e;
+                }
+                if (!budget.tryAcquire()) {
+                    budgetExhausted.increment();
+                    throw e;
+                }
+                retries.increment();
+                long backoff = backoffMillis(attempt);
+                log.debug("Read attempt {} failed ({}), retrying in {} ms", attempt, e.getMessage(), backoff);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private <T> T hedged(Supplier<T> read) {
+        if (!properties.getHedging().isEnabled()) {
+            return timed(read);
+        }
+
+        CompletableFuture<T> primary;
+        try {
+            primary = CompletableFuture.supplyAsync(() -> timed(read), executor);
+        } catch (RejectedExecutionException e) {
+            return timed(read);
+        }
+
+        try {
+            return primary.get(hedgeDelayNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // slower than usual: hedge below
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return join(primary);
+        }
+
+        if (!budget.tryAcquire()) {
+            budgetExhausted.increment();
+            return join(primary);
+        }
+
+        CompletableFuture<T> hedge;
+        try {
+            hedge = CompletableFuture.supplyAsync(() -> timed(read), executor);
+        } catch (RejectedExecutionException e) {
+            return join(primary);
+        }
+        hedges.increment();
+
+        CompletableFuture<T> first = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        primary.whenComplete((value, error) -> {
+            if (error == null) {
+                first.complete(value);
+            } else if (failures.incrementAndGet() == 2) {
+                first.completeExceptionally(error);
+            }
+        });
+        hedge.whenComplete((value, error) -> {
+            if (error == null) {
+                if (first.complete(value)) {
+                    hedgeWins.increment();
+                }
+            } else if (failures.incrementAndGet() == 2) {
+                first.completeExceptionally(error);
+            }
+        });
+        return join(first);
+    }
+
+    private <T> T timed(Supplier<T> read) {
+        long start = System.nanoTime();
+        T result = read.get();
+        attemptLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private long hedgeDelayNanos() {
+        long now = System.nanoTime();
+        if (now - hedgeDelayRefreshedAt < HEDGE_DELAY_REFRESH_NANOS) {
+            return hedgeDelayNanos;
+        }
+        hedgeDelayRefreshedAt = now;
+
+        ProductReadProperties.Hedging hedging = properties.getHedging();
+        if (attemptLatency.count() < hedging.getMinSamples()) {
+            return hedgeDelayNanos;
+        }
+        for (ValueAtPercentile percentile : attemptLatency.takeSnapshot().percentileValues()) {
+            long delay = (long) percentile.value(TimeUnit.NANOSECONDS);
+            hedgeDelayNanos = Math.max(hedging.getMinDelay().toNanos(),
+                    Math.min(hedging.getMaxDelay().toNanos(), delay));
+        }
+        return hedgeDelayNanos;
+    }
+
+    private long backoffMillis(int attempt) {
+        ProductReadProperties.Retry retry = properties.getRetry();
+        long ceiling = Math.min(retry.getMaxBackoff().toMillis(),
+                retry.getInitialBackoff().toMillis() << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static boolean isRetryable(Throwable e) {
+        return e instanceof ResourceAccessException || e instanceof HttpServerErrorException;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        return new CompletionException(cause);
+    }
+
+    private static Counter extraAttempts(String name, String kind, MeterRegistry meterRegistry) {
+        return Counter.builder("downstream.read.extra.attempts")
+                .description("Additional read attempts sent to a downstream service")
+                .tag("service", name)
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+}
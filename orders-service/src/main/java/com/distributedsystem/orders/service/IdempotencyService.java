@@ -0,0 +1,312 @@
+package com.distributedsystem.orders.service;
+
+import com.distributedsystem.orders.exception.IdempotencyConflictException;
+import com.distributedsystem.orders.exception.IdempotencyKeyReusedException;
+import com.distributedsystem.orders.model.IdempotencyRecord;
+import com.distributedsystem.orders.model.IdempotencyStatus;
+import com.distributedsystem.orders.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs an operation at most once per {@code Idempotency-Key}. Completed responses
+ * are persisted (with a TTL) and kept in a small in-memory cache; concurrent
+ * duplicates on this instance wait for the first execution, and duplicates on
+ * other instances wait for its stored response.
+ * <p>
+ * An operation that commits its own writes stores its response with
+ * {@link #completeInCurrentTransaction} in that same transaction, so the key
+ * can never be left claimed by an operation that did commit; a claim that is
+ * released as abandoned makes that commit fail instead of running twice.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${idempotency.ttl:PT24H}")
+    private Duration ttl;
+
+    @Value("${idempotency.lock-timeout:PT2M}")
+    private Duration lockTimeout;
+
+    @Value("${idempotency.wait-timeout:PT10S}")
+    private Duration waitTimeout;
+
+    @Value("${idempotency.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${idempotency.cache.ttl:PT10M}")
+    private Duration cacheTtl;
+
+    private Cache<String, StoredResponse> completed;
+
+    private final ConcurrentMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Claim> CURRENT_CLAIM = new ThreadLocal<>();
+
+    @PostConstruct
+    public void init() {
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl.compareTo(ttl) < 0 ? cacheTtl : ttl)
+                .build();
+    }
+
+    public <T> IdempotentResult<T> execute(String idempotencyKey, String userId, Object request,
+            Class<T> responseType, Supplier<T> action) {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return new IdempotentResult<>(action.get(), false);
+        }
+
+        String scopedKey = userId + ":"
+                + (idempotencyKey.length() > MAX_KEY_LENGTH ? sha256(idempotencyKey) : idempotencyKey);
+        String requestHash = sha256(toJson(request));
+
+        StoredResponse cached = completed.getIfPresent(scopedKey);
+        if (cached != null) {
+            return replay(idempotencyKey, cached, requestHash, responseType);
+        }
+
+        CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(scopedKey, execution);
+        if (running != null) {
+            log.info("Waiting for in-flight request with the same Idempotency-Key: {}", idempotencyKey);
+            return replay(idempotencyKey, await(idempotencyKey, running), requestHash, responseType);
+        }
+
+        try {
+            return executeOnce(idempotencyKey, scopedKey, requestHash, responseType, action, execution);
+        } catch (RuntimeException e) {
+            execution.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scopedKey, execution);
+        }
+    }
+
+    /**
+     * Stores the response as the outcome of the request being executed on this
+     * thread, in the caller's transaction; {@code response} is only called when there
+     * is one. Throws {@link IdempotencyConflictException}
+     * (rolling the caller back) if the key is no longer held by this execution.
+     * Does nothing when the request has no {@code Idempotency-Key}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void completeInCurrentTransaction(Supplier<?> response) {
+        Claim claim = CURRENT_CLAIM.get();
+        if (claim == null) {
+            return;
+        }
+
+        StoredResponse stored = new StoredResponse(claim.requestHash, toJson(response.get()));
+        int updated = idempotencyRecordRepository.completeClaim(claim.scopedKey, claim.claimedAt,
+                IdempotencyStatus.COMPLETED, stored.body(), LocalDateTime.now().plus(ttl));
+        if (updated != 1) {
+            log.warn("Idempotency-Key {} was released before its request committed", claim.idempotencyKey);
+            throw new IdempotencyConflictException(claim.idempotencyKey);
+        }
+        claim.stored = stored;
+    }
+
+    @Scheduled(cron = "${idempotency.purge-cron:0 */15 * * * *}")
+    public void purgeExpired() {
+        Integer purged = transactionTemplate.execute(status ->
+                idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+        if (purged != null && purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private <T> IdempotentResult<T> executeOnce(String idempotencyKey, String scopedKey, String requestHash,
+            Class<T> responseType, Supplier<T> action, CompletableFuture<StoredResponse> execution) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Optional<LocalDateTime> claimedAt = claim(scopedKey, requestHash);
+            if (claimedAt.isPresent()) {
+                Claim claim = new Claim(idempotencyKey, scopedKey, requestHash, claimedAt.get());
+                T result;
+                CURRENT_CLAIM.set(claim);
+                try {
+                    result = action.get();
+                } catch (RuntimeException e) {
+                    // a no-op if the operation committed its response before failing
+                    transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository
+                            .releaseClaim(scopedKey, claim.claimedAt));
+                    throw e;
+                } finally {
+                    CURRENT_CLAIM.remove();
+                }
+
+                StoredResponse stored = claim.stored;
+                if (stored == null) {
+                    // the operation did not store its response in its own transaction
+                    StoredResponse response = new StoredResponse(requestHash, toJson(result));
+                    transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.completeClaim(
+                            scopedKey, claim.claimedAt, IdempotencyStatus.COMPLETED, response.body(),
+                            LocalDateTime.now().plus(ttl)));
+                    stored = response;
+                }
+                completed.put(scopedKey, stored);
+                execution.complete(stored);
+                return new IdempotentResult<>(result, false);
+            }
+
+            Optional<StoredResponse> stored = awaitStored(idempotencyKey, scopedKey);
+            if (stored.isPresent()) {
+                completed.put(scopedKey, stored.get());
+                execution.complete(stored.get());
+                return replay(idempotencyKey, stored.get(), requestHash, responseType);
+            }
+        }
+        throw new IdempotencyConflictException(idempotencyKey);
+    }
+
+    /**
+     * Returns the claim time, which identifies this claim of the key, or empty if
+     * the key is taken. Truncated to what the database stores.
+     */
+    private Optional<LocalDateTime> claim(String scopedKey, String requestHash) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Integer claimed = transactionTemplate.execute(status ->
+                idempotencyRecordRepository.claim(scopedKey, requestHash, now, now.plus(ttl)));
+        return claimed != null && claimed == 1 ? Optional.of(now) : Optional.empty();
+    }
+
+    /**
+     * Waits for another instance to finish the request holding the key. Returns
+     * empty when the key was released (failed, expired or abandoned) and can be
+     * claimed again.
+     */
+    private Optional<StoredResponse> awaitStored(String idempotencyKey, String scopedKey) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            Optional<IdempotencyRecord> record = idempotencyRecordRepository.findById(scopedKey);
+            if (record.isEmpty()) {
+                return Optional.empty();
+            }
+
+            IdempotencyRecord existing = record.get();
+            LocalDateTime now = LocalDateTime.now();
+            if (existing.getStatus() == IdempotencyStatus.COMPLETED) {
+                if (existing.getExpiresAt().isAfter(now)) {
+                    return Optional.of(new StoredResponse(existing.getRequestHash(), existing.getResponseBody()));
+                }
+                transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository
+                        .deleteByKeyAndStatus(scopedKey, IdempotencyStatus.COMPLETED));
+                return Optional.empty();
+            }
+
+            if (existing.getCreatedAt().plus(lockTimeout).isBefore(now)) {
+                log.warn("Releasing abandoned Idempotency-Key: {}", idempotencyKey);
+                transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository
+                        .deleteByKeyAndStatus(scopedKey, IdempotencyStatus.IN_PROGRESS));
+                return Optional.empty();
+            }
+
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new IdempotencyConflictException(idempotencyKey);
+    }
+
+    private StoredResponse await(String idempotencyKey, CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException(idempotencyKey);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException(idempotencyKey);
+        }
+    }
+
+    private <T> IdempotentResult<T> replay(String idempotencyKey, StoredResponse stored, String requestHash,
+            Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReusedException(idempotencyKey);
+        }
+        try {
+            return new IdempotentResult<>(objectMapper.readValue(stored.body(), responseType), true);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response could not be read", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize value for idempotency", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record StoredResponse(String requestHash, String body) {
+    }
+
+    private static final class Claim {
+        private final String idempotencyKey;
+        private final String scopedKey;
+        private final String requestHash;
+        private final LocalDateTime claimedAt;
+        private StoredResponse stored;
+
+        private Claim(String idempotencyKey, String scopedKey, String requestHash, LocalDateTime claimedAt) {
+            this.idempotencyKey = idempotencyKey;
+            this.scopedKey = scopedKey;
+            this.requestHash = requestHash;
+            this.claimedAt = claimedAt;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.distributedsystem.orders.service;
+
+/**
+ * The response of an idempotent operation, and whether it was replayed from an
+ * earlier execution instead of being produced now.
+ */
+public record IdempotentResult<T>(T value, boolean replayed) {
+}
@@ -0,0 +1,178 @@
+package com.distributedsystem.orders.service;
+
+import com.distributedsystem.orders.dto.NotificationRequest;
+import com.distributedsystem.orders.model.NotificationOutbox;
+import com.distributedsystem.orders.model.NotificationOutboxStatus;
+import com.distributedsystem.orders.repository.NotificationOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drains the notification outbox in batches. A batch is claimed by pushing its
+ * next attempt past a lease, so rows are never locked while the Notifications
+ * Service is being called and several instances can drain the same table.
+ * Deliveries stop once one more call could outlast the lease; the rest of the
+ * batch is handed back. Outcomes are only written to rows still under this
+ * dispatcher's lease, so a row another instance has since claimed is left alone.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationOutboxDispatcher {
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationServiceClient notificationServiceClient;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${notifications.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${notifications.outbox.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${notifications.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${notifications.outbox.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${notifications.outbox.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    @Value("${notifications.outbox.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${notifications.outbox.max-delivery-ms:6000}")
+    private long maxDeliveryMs;
+
+    @Value("${notifications.outbox.retention-hours:72}")
+    private long retentionHours;
+
+    @Scheduled(fixedDelayString = "${notifications.outbox.poll-interval-ms:500}")
+    public void dispatchPending() {
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            LocalDateTime leasedUntil = LocalDateTime.now().plus(leaseMs, ChronoUnit.MILLIS)
+                    .truncatedTo(ChronoUnit.MICROS);
+            List<NotificationOutbox> batch = claimBatch(leasedUntil);
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            List<NotificationOutbox> sent = new ArrayList<>();
+            List<NotificationOutbox> failed = new ArrayList<>();
+            List<NotificationOutbox> unattempted = new ArrayList<>();
+            LocalDateTime lastStart = leasedUntil.minus(maxDeliveryMs, ChronoUnit.MILLIS);
+            for (NotificationOutbox notification : batch) {
+                if (!unattempted.isEmpty() || LocalDateTime.now().isAfter(lastStart)) {
+                    unattempted.add(notification);
+                } else {
+                    (deliver(notification) ? sent : failed).add(notification);
+                }
+            }
+
+            recordOutcome(leasedUntil, sent, failed, unattempted);
+
+            if (batch.size() < batchSize || !unattempted.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    @Scheduled(cron = "${notifications.outbox.purge-cron:0 0 * * * *}")
+    public void purgeSent() {
+        LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+        Integer purged = transactionTemplate.execute(status ->
+                outboxRepository.deleteByStatusAndSentAtBefore(NotificationOutboxStatus.SENT, before));
+        if (purged != null && purged > 0) {
+            log.info("Purged {} delivered notifications older than {}", purged, before);
+        }
+    }
+
+    private List<NotificationOutbox> claimBatch(LocalDateTime leasedUntil) {
+        return transactionTemplate.execute(status -> {
+            List<NotificationOutbox> batch = outboxRepository.lockNextBatch(LocalDateTime.now(), batchSize);
+            batch.forEach(notification -> notification.setNextAttemptAt(leasedUntil));
+            return batch;
+        });
+    }
+
+    private boolean deliver(NotificationOutbox notification) {
+        try {
+            return notificationServiceClient.sendNotification(NotificationRequest.builder()
+                    .orderId(notification.getOrderId())
+                    .userEmail(notification.getUserEmail())
+                    .state(notification.getState())
+                    .message(notification.getMessage())
+                    .build());
+        } catch (RuntimeException e) {
+            log.error("Unexpected error delivering notification {}", notification.getId(), e);
+            return false;
+        }
+    }
+
+    private void recordOutcome(LocalDateTime leasedUntil, List<NotificationOutbox> sent,
+            List<NotificationOutbox> failed, List<NotificationOutbox> unattempted) {
+        LocalDateTime now = LocalDateTime.now();
+
+        int lost = transactionTemplate.execute(status -> {
+            if (!sent.isEmpty()) {
+                outboxRepository.markDelivered(
+                        sent.stream().map(NotificationOutbox::getId).toList(),
+                        NotificationOutboxStatus.SENT,
+                        now);
+            }
+            int stale = 0;
+            for (NotificationOutbox notification : failed) {
+                stale += 1 - recordFailure(notification, leasedUntil, now);
+            }
+            if (!unattempted.isEmpty()) {
+                outboxRepository.releaseLease(
+                        unattempted.stream().map(NotificationOutbox::getId).toList(),
+                        leasedUntil,
+                        now);
+            }
+            return stale;
+        });
+
+        if (!failed.isEmpty() || !unattempted.isEmpty()) {
+            log.warn("Notification batch: {} sent, {} to retry, {} not attempted before the lease ran out",
+                    sent.size(), failed.size(), unattempted.size());
+        }
+        if (lost > 0) {
+            log.warn("{} failed notifications were claimed by another dispatcher after their lease expired", lost);
+        }
+    }
+
+    private int recordFailure(NotificationOutbox notification, LocalDateTime leasedUntil, LocalDateTime now) {
+        int attempts = notification.getAttempts() + 1;
+        boolean exhausted = attempts >= maxAttempts;
+        int updated = outboxRepository.recordFailedAttempt(
+                notification.getId(),
+                leasedUntil,
+                attempts,
+                exhausted ? NotificationOutboxStatus.FAILED : NotificationOutboxStatus.PENDING,
+                exhausted ? leasedUntil : now.plus(backoffMs(attempts), ChronoUnit.MILLIS),
+                "Notifications Service did not accept the notification");
+        if (exhausted && updated > 0) {
+            log.error("Giving up on notification {} for order {} after {} attempts",
+                    notification.getId(), notification.getOrderId(), attempts);
+        }
+        return updated;
+    }
+
+    private long backoffMs(int attempts) {
+        long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 20));
+        long jitter = ThreadLocalRandom.current().nextLong(backoff / 5 + 1);
+        return backoff - backoff / 10 + jitter;
+    }
+}
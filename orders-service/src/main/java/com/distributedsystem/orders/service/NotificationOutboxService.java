@@ -0,0 +1,37 @@
+package com.distributedsystem.orders.service;
+
+import com.distributedsystem.orders.model.NotificationOutbox;
+import com.distributedsystem.orders.repository.NotificationOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationOutboxService {
+
+    private final NotificationOutboxRepository outboxRepository;
+
+    /**
+     * Records a notification in the caller's transaction, so it is committed (or
+     * rolled back) together with the order change it describes.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Long orderId, String userEmail, String state, String message) {
+        NotificationOutbox notification = NotificationOutbox.builder()
+                .orderId(orderId)
+                .userEmail(userEmail)
+                .state(state)
+                .message(message)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+
+        outboxRepository.save(notification);
+        log.debug("Notification {} queued for order: {}", state, orderId);
+    }
+}
@@ -1,8 +1,15 @@
 package com.distributedsystem.orders.service;
 
 import com.distributedsystem.orders.dto.NotificationRequest;
+import com.distributedsystem.orders.exception.ServiceUnavailableException;
+import com.distributedsystem.orders.timing.RequestTimings;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -17,11 +24,26 @@ import org.springframework.web.client.RestTemplate;
 @Slf4j
 public class NotificationServiceClient {
 
+    @Qualifier("notificationsRestTemplate")
     private final RestTemplate restTemplate;
 
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    private final BulkheadRegistry bulkheadRegistry;
+
+    private final MeterRegistry meterRegistry;
+
     @Value("${notifications.service.url:http://notifications-service:5040}")
     private String notificationsServiceUrl;
 
+    private DownstreamGuard guard;
+
+    @PostConstruct
+    public void init() {
+        this.guard = new DownstreamGuard("notifications", "Notifications",
+                circuitBreakerRegistry, bulkheadRegistry, meterRegistry);
+    }
+
     public boolean sendNotification(NotificationRequest request) {
         try {
             String url = notificationsServiceUrl + "/api/notifications";
@@ -34,7 +56,10 @@ public class NotificationServiceClient {
             log.info("Sending notification to Notifications Service: order={}, state={}",
                     request.getOrderId(), request.getState());
 
-            ResponseEntity<String> response = restTemplate.postForEntity(url, entity, String.class);
+            ResponseEntity<String> response;
+            try (RequestTimings.Stopwatch ignored = RequestTimings.time(RequestTimings.Segment.NOTIFY)) {
+                response = guard.call(() -> restTemplate.postForEntity(url, entity, String.class));
+            }
 
             if (response.getStatusCode().is2xxSuccessful()) {
                 log.info("Notification sent successfully for order: {}", request.getOrderId());
@@ -44,6 +69,9 @@ public class NotificationServiceClient {
                 return false;
             }
 
+        } catch (ServiceUnavailableException e) {
+            log.warn("Notification for order {} not sent: {}", request.getOrderId(), e.getMessage());
+            return false;
         } catch (RestClientException e) {
             log.error("Error communicating with Notifications Service for order: {}",
                     request.getOrderId(), e);
@@ -0,0 +1,134 @@
+package com.distributedsystem.orders.service;
+
+import com.distributedsystem.orders.dto.OrderDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Order details ({@code GET /api/orders/{id}}) by order id. Entries are dropped
+ * after the transaction that changes an order commits, here and, through
+ * Postgres NOTIFY on {@link #INVALIDATION_CHANNEL}, on every other instance.
+ * A changed order is not cached again for a short grace period, so a read that
+ * started before the change (or hit a lagging replica) cannot put the old
+ * version back. Access checks are up to the caller.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderDetailCache {
+
+    static final String INVALIDATION_CHANNEL = "order_cache_invalidation";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${orders.cache.details.enabled:true}")
+    private boolean enabled;
+
+    @Value("${orders.cache.details.max-size:10000}")
+    private long maxSize;
+
+    @Value("${orders.cache.details.ttl:PT5M}")
+    private Duration ttl;
+
+    @Value("${orders.cache.details.invalidation-grace:PT5S}")
+    private Duration invalidationGrace;
+
+    @Value("${orders.cache.details.broadcast:true}")
+    private boolean broadcast;
+
+    private Cache<Long, OrderDTO> orders;
+
+    private Cache<Long, Boolean> recentlyChanged;
+
+    /** With broadcasting on, the cache is only used while changes from other instances can be heard. */
+    private volatile boolean coherent;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        this.orders = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.recentlyChanged = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(invalidationGrace)
+                .build();
+        this.coherent = !broadcast;
+        CaffeineCacheMetrics.monitor(meterRegistry, orders, "orders.details");
+    }
+
+    public OrderDTO get(Long orderId) {
+        if (orders == null || !coherent) {
+            return null;
+        }
+        return orders.getIfPresent(orderId);
+    }
+
+    public void put(OrderDTO order) {
+        if (orders == null || !coherent || recentlyChanged.getIfPresent(order.getId()) != null) {
+            return;
+        }
+        orders.put(order.getId(), order);
+    }
+
+    /**
+     * Call inside the transaction that changes the order. The entry is dropped on
+     * commit; other instances are notified by Postgres, which delivers NOTIFY only
+     * when the transaction commits.
+     */
+    public void invalidateOnCommit(Long orderId) {
+        if (orders == null) {
+            return;
+        }
+        if (broadcast) {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", (ResultSetExtractor<Void>) rs -> null,
+                    INVALIDATION_CHANNEL, orderId.toString());
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(orderId);
+                }
+            });
+        } else {
+            invalidate(orderId);
+        }
+    }
+
+    void invalidate(Long orderId) {
+        recentlyChanged.put(orderId, Boolean.TRUE);
+        orders.invalidate(orderId);
+    }
+
+    boolean isBroadcastEnabled() {
+        return orders != null && broadcast;
+    }
+
+    /**
+     * Called by {@link OrderChangeListener} when it starts or stops listening.
+     * Notifications may have been missed while it was not, so everything is dropped.
+     */
+    void setListening(boolean listening) {
+        orders.invalidateAll();
+        coherent = listening;
+    }
+}
@@ -0,0 +1,74 @@
+package com.distributedsystem.orders.service;
+
+import com.distributedsystem.orders.dto.OrderDTO;
+import com.distributedsystem.orders.dto.OrderItemDTO;
+import com.distributedsystem.orders.dto.OrderItemRow;
+import com.distributedsystem.orders.dto.OrderRow;
+import com.distributedsystem.orders.model.Order;
+import com.distributedsystem.orders.model.OrderItem;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class OrderMapper {
+
+    public OrderDTO toDTO(Order order) {
+        return build(toRow(order), order.getItems().stream()
+                .map(this::toItemDTO)
+                .toList());
+    }
+
+    public OrderDTO toDTO(OrderRow order, List<OrderItemRow> items) {
+        return build(order, items.stream()
+                .map(this::toItemDTO)
+                .toList());
+    }
+
+    /**
+     * The one place the DTO is assembled; entities reach it through the same row
+     * projection the listings read.
+     */
+    private OrderDTO build(OrderRow order, List<OrderItemDTO> items) {
+        return OrderDTO.builder()
+                .id(order.getId())
+                .userId(order.getUserId())
+                .userEmail(order.getUserEmail())
+                .totalAmount(order.getTotalAmount().doubleValue())
+                .status(order.getStatus())
+                .notes(order.getNotes())
+                .items(items)
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .build();
+    }
+
+    private static OrderRow toRow(Order order) {
+        return new OrderRow(order.getId(), order.getUserId(), order.getUserEmail(), order.getTotalAmount(),
+                order.getStatus(), order.getNotes(), order.getCreatedAt(), order.getUpdatedAt());
+    }
+
+    private OrderItemDTO toItemDTO(OrderItem item) {
+        return OrderItemDTO.builder()
+                .id(item.getId())
+                .productId(item.getProductId())
+                .productSku(item.getProductSku())
+                .productName(item.getProductName())
+                .quantity(item.getQuantity())
+                .unitPrice(item.getUnitPrice().doubleValue())
+                .subtotal(item.getSubtotal().doubleValue())
+                .build();
+    }
+
+    private OrderItemDTO toItemDTO(OrderItemRow item) {
+        return OrderItemDTO.builder()
+                .id(item.getId())
+                .productId(item.getProductId())
+                .productSku(item.getProductSku())
+                .productName(item.getProductName())
+                .quantity(item.getQuantity())
+                .unitPrice(item.getUnitPrice().doubleValue())
+                .subtotal(item.getSubtotal().doubleValue())
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package com.distributedsystem.orders.service;
+
+import com.distributedsystem.orders.model.OrderStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Business counters. Tags only take enum-like values (order status, callback
+ * outcome) so the number of series stays fixed.
+ */
+@Component
+public class OrderMetrics {
+
+    private final Counter ordersCreated;
+    private final DistributionSummary orderAmount;
+    private final Map<OrderStatus, Counter> statusChanges = new EnumMap<>(OrderStatus.class);
+    private final Counter callbacksApplied;
+    private final Counter callbacksDuplicate;
+    private final Counter callbacksQueued;
+
+    public OrderMetrics(MeterRegistry meterRegistry) {
+        this.ordersCreated = Counter.builder("orders.created")
+                .description("Orders created")
+                .register(meterRegistry);
+        this.orderAmount = DistributionSummary.builder("orders.amount")
+                .description("Total amount of created orders")
+                .register(meterRegistry);
+        for (OrderStatus status : OrderStatus.values()) {
+            statusChanges.put(status, Counter.builder("orders.status.changes")
+                    .description("Orders moved to a status")
+                    .tag("status", status.name())
+                    .register(meterRegistry));
+        }
+        this.callbacksApplied = paymentCallbacks("applied", meterRegistry);
+        this.callbacksDuplicate = paymentCallbacks("duplicate", meterRegistry);
+        this.callbacksQueued = paymentCallbacks("queued", meterRegistry);
+    }
+
+    public void orderCreated(BigDecimal totalAmount) {
+        ordersCreated.increment();
+        orderAmount.record(totalAmount.doubleValue());
+    }
+
+    /**
+     * Counts the status change once the surrounding transaction commits.
+     */
+    public void statusChanged(OrderStatus status) {
+        Counter counter = statusChanges.get(status);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counter.increment();
+                }
+            });
+        } else {
+            counter.increment();
+        }
+    }
+
+    public void paymentCallbackApplied() {
+        callbacksApplied.increment();
+    }
+
+    public void paymentCallbackDuplicate() {
+        callbacksDuplicate.increment();
+    }
+
+    public void paymentCallbackQueued() {
+        callbacksQueued.increment();
+    }
+
+    private static Counter paymentCallbacks(String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder("orders.payment.callbacks")
+                .description("Payment callbacks by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -1,37 +1,110 @@
 package com.distributedsystem.orders.service;
 
+import com.distributedsystem.orders.catalog.ProductCatalog;
+import com.distributedsystem.orders.datasource.ReadYourWritesTracker;
 import com.distributedsystem.orders.dto.*;
+import com.distributedsystem.orders.exception.ConcurrentOrderUpdateException;
 import com.distributedsystem.orders.exception.InsufficientStockException;
+import com.distributedsystem.orders.flashsale.FlashSaleStock;
 import com.distributedsystem.orders.exception.OrderNotFoundException;
+import com.distributedsystem.orders.exception.PaymentInProgressException;
+import com.distributedsystem.orders.exception.PaymentRejectedException;
+import com.distributedsystem.orders.exception.ServiceUnavailableException;
+import com.distributedsystem.orders.exception.StockUpdateRejectedException;
+import com.distributedsystem.orders.exception.StockUpdateUnconfirmedException;
 import com.distributedsystem.orders.model.Order;
 import com.distributedsystem.orders.model.OrderItem;
 import com.distributedsystem.orders.model.OrderStatus;
+import com.distributedsystem.orders.repository.OrderItemRepository;
 import com.distributedsystem.orders.repository.OrderRepository;
 import com.distributedsystem.orders.security.UserPrincipal;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class OrderService {
 
+    /** Cancelling these gives their stock back; shipped orders can still be cancelled. */
+    private static final Set<OrderStatus> PAID_STATUSES =
+            EnumSet.of(OrderStatus.PAGADO, OrderStatus.SHIPPED, OrderStatus.DELIVERED);
+
     private final OrderRepository orderRepository;
-    private final ProductServiceClient productServiceClient;
-    private final NotificationServiceClient notificationServiceClient;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderMapper orderMapper;
+    private final ProductCatalog productCatalog;
+    private final StockUpdateAggregator stockUpdateAggregator;
+    private final NotificationOutboxService notificationOutboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderMetrics orderMetrics;
+    private final ReadYourWritesTracker readYourWrites;
+    private final OrderDetailCache orderDetailCache;
+    private final FlashSaleStock flashSaleStock;
+    private final IdempotencyService idempotencyService;
+
+    @Value("${orders.payment.claim-timeout:PT2M}")
+    private Duration paymentClaimTimeout;
+
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
 
-    @Transactional
+    /**
+     * Products are looked up and priced without a transaction; only the insert of
+     * the order, its items and the queued notification runs in one. With the local
+     * catalog enabled, sku, name and price come from it and the stock check is a
+     * best effort; stock is enforced when the order is paid. Units of flash-sale
+     * products are reserved first, so sold-out ones are rejected before any lookup.
+     */
     public OrderDTO createOrder(CreateOrderRequest request, UserPrincipal userPrincipal, String jwtToken) {
         log.info("Creating order for user: {}", userPrincipal.getUserId());
 
+        Map<Long, Integer> quantities = request.getItems().stream()
+                .collect(Collectors.toMap(OrderItemDTO::getProductId, OrderItemDTO::getQuantity,
+                        Integer::sum, LinkedHashMap::new));
+        FlashSaleStock.Reservation reservation = flashSaleStock.reserve(quantities);
+
+        Order savedOrder;
+        try {
+            savedOrder = priceAndSave(request, userPrincipal, jwtToken);
+        } catch (RuntimeException e) {
+            reservation.cancel();
+            throw e;
+        }
+        reservation.confirm();
+
+        orderMetrics.orderCreated(savedOrder.getTotalAmount());
+        log.info("Order created successfully: {}", savedOrder.getId());
+        return orderMapper.toDTO(savedOrder);
+    }
+
+    private Order priceAndSave(CreateOrderRequest request, UserPrincipal userPrincipal, String jwtToken) {
         Order order = Order.builder()
                 .userId(userPrincipal.getUserId())
                 .userEmail(userPrincipal.getEmail())
@@ -40,8 +113,12 @@ public class OrderService {
                 .status(OrderStatus.CREADO)
                 .build();
 
+        Map<Long, ProductDTO> products = productCatalog.getProducts(
+                request.getItems().stream().map(OrderItemDTO::getProductId).toList(),
+                jwtToken);
+
         for (OrderItemDTO itemDTO : request.getItems()) {
-            ProductDTO product = productServiceClient.getProduct(itemDTO.getProductId(), jwtToken);
+            ProductDTO product = products.get(itemDTO.getProductId());
 
             Integer productStock = product.getStock();
             if (productStock == null) {
@@ -77,57 +154,120 @@ public class OrderService {
         }
 
         order.calculateTotalAmount();
-        Order savedOrder = orderRepository.save(order);
-
-        notificationServiceClient.sendOrderNotification(
-                savedOrder.getId(),
-                savedOrder.getUserEmail(),
-                "ORDER_CREATED",
-                String.format("Your order #%d has been created successfully", savedOrder.getId()));
-
-        log.info("Order created successfully: {}", savedOrder.getId());
-        return convertToDTO(savedOrder);
+        return transactionTemplate.execute(status -> {
+            Order created = orderRepository.save(order);
+            readYourWrites.recordWrite(created.getUserId());
+            notificationOutboxService.enqueue(
+                    created.getId(),
+                    created.getUserEmail(),
+                    "ORDER_CREATED",
+                    String.format("Your order #%d has been created successfully", created.getId()));
+            idempotencyService.completeInCurrentTransaction(() -> {
+                // timestamps are generated on insert
+                orderRepository.flush();
+                return orderMapper.toDTO(created);
+            });
+            return created;
+        });
     }
 
     @Transactional(readOnly = true)
     public Page<OrderDTO> getUserOrders(UserPrincipal userPrincipal, OrderStatus status, Pageable pageable) {
         log.info("Fetching orders for user: {}", userPrincipal.getUserId());
 
-        Page<Order> orders;
+        Page<OrderRow> orders;
         if (status != null) {
-            orders = orderRepository.findByUserIdAndStatus(userPrincipal.getUserId(), status, pageable);
+            orders = orderRepository.findRowsByUserIdAndStatus(userPrincipal.getUserId(), status, pageable);
         } else {
-            orders = orderRepository.findByUserId(userPrincipal.getUserId(), pageable);
+            orders = orderRepository.findRowsByUserId(userPrincipal.getUserId(), pageable);
         }
 
-        return orders.map(this::convertToDTO);
+        return toDTOPage(orders);
     }
 
     @Transactional(readOnly = true)
     public Page<OrderDTO> getAllOrders(OrderStatus status, Pageable pageable) {
         log.info("Admin fetching all orders. Status filter: {}", status);
 
-        Page<Order> orders;
+        Page<OrderRow> orders;
         if (status != null) {
-            orders = orderRepository.findByStatus(status, pageable);
+            orders = orderRepository.findRowsByStatus(status, pageable);
         } else {
-            orders = orderRepository.findAll(pageable);
+            orders = orderRepository.findAllRows(pageable);
         }
 
-        return orders.map(this::convertToDTO);
+        return toDTOPage(orders);
     }
 
-    @Transactional
+    /**
+     * Keyset variant of {@link #getUserOrders}: newest first, no count query, and the
+     * cost of a page does not grow with how deep into the listing it is.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDTO> getUserOrdersByCursor(UserPrincipal userPrincipal, OrderStatus status,
+            String cursor, int size) {
+        log.info("Fetching orders for user: {} by cursor", userPrincipal.getUserId());
+
+        OrderCursor position = OrderCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<OrderRow> orders;
+        if (status != null) {
+            orders = orderRepository.findRowsByUserIdAndStatusBefore(
+                    userPrincipal.getUserId(), status, position.createdAt(), position.id(), limit);
+        } else {
+            orders = orderRepository.findRowsByUserIdBefore(
+                    userPrincipal.getUserId(), position.createdAt(), position.id(), limit);
+        }
+
+        return toCursorPage(orders, size);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDTO> getAllOrdersByCursor(OrderStatus status, String cursor, int size) {
+        log.info("Admin fetching all orders by cursor. Status filter: {}", status);
+
+        OrderCursor position = OrderCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<OrderRow> orders;
+        if (status != null) {
+            orders = orderRepository.findRowsByStatusBefore(status, position.createdAt(), position.id(), limit);
+        } else {
+            orders = orderRepository.findAllRowsBefore(position.createdAt(), position.id(), limit);
+        }
+
+        return toCursorPage(orders, size);
+    }
+
+    /**
+     * Stock is reduced before, and outside of, the short transaction that marks the
+     * order as paid. If the order changed in the meantime the stock is given back.
+     * <p>
+     * Retries of a callback that was already applied are answered from the unique
+     * {@code payment_id} index. Otherwise the paymentId is claimed on the order
+     * before stock is reduced, so concurrent retries cannot decrement it twice.
+     * The claim is released when Products refused the reduction or was never
+     * called; if the outcome is unknown it is kept until it goes stale.
+     */
     public OrderDTO handlePaymentCallback(Long orderId, PaymentCallbackRequest request) {
+        String paymentId = request.getPaymentId();
         log.info("Processing payment callback for order: {}, paymentId: {}, status: {}",
-                orderId, request.getPaymentId(), request.getStatus());
+                orderId, paymentId, request.getStatus());
+
+        Optional<OrderDTO> alreadyApplied = findAppliedPayment(orderId, paymentId);
+        if (alreadyApplied.isPresent()) {
+            log.info("Duplicate payment callback for order: {}, paymentId: {} ignored", orderId, paymentId);
+            orderMetrics.paymentCallbackDuplicate();
+            return alreadyApplied.get();
+        }
 
         Order order = orderRepository.findByIdWithItems(orderId)
                 .orElseThrow(() -> new OrderNotFoundException(orderId));
 
         if (!"completed".equalsIgnoreCase(request.getStatus())) {
             log.warn("Payment callback received with non-completed status: {}", request.getStatus());
-            throw new IllegalArgumentException("Payment status must be 'completed'");
+            throw new PaymentRejectedException("Payment status must be 'completed'");
         }
 
         BigDecimal paymentAmount = BigDecimal.valueOf(request.getAmount());
@@ -136,63 +276,105 @@ public class OrderService {
                     "Payment amount (%.2f) does not match order total (%.2f)",
                     paymentAmount, order.getTotalAmount());
             log.error(errorMsg);
-            throw new IllegalArgumentException(errorMsg);
+            throw new PaymentRejectedException(errorMsg);
         }
 
         OrderStatus currentStatus = order.getStatus();
-        if (!currentStatus.canTransitionTo(OrderStatus.PAGADO)) {
+        if (currentStatus == OrderStatus.PAGADO || !currentStatus.canTransitionTo(OrderStatus.PAGADO)) {
             String errorMsg = String.format(
                     "Cannot mark order as paid. Current status: %s", currentStatus);
             log.error(errorMsg);
-            throw new IllegalStateException(errorMsg);
+            throw new PaymentRejectedException(errorMsg);
         }
 
-        List<StockUpdateItem> stockUpdates = order.getItems().stream()
-                .map(item -> StockUpdateItem.builder()
-                        .id(item.getProductId())
-                        .quantity(-item.getQuantity())
-                        .build())
-                .toList();
+        if (!claimPayment(orderId, paymentId, currentStatus)) {
+            OrderDTO applied = findAppliedPayment(orderId, paymentId).orElseThrow(() -> new ConcurrentOrderUpdateException(
+                    String.format("Order %d is already being paid by another payment", orderId)));
+            orderMetrics.paymentCallbackDuplicate();
+            return applied;
+        }
 
+        Map<Long, Integer> quantities = toQuantities(order);
         try {
-            productServiceClient.updateStock(stockUpdates, null);
+            stockUpdateAggregator.apply(toStockUpdates(quantities, -1));
             log.info("Stock reduced successfully for order: {}", orderId);
+        } catch (StockUpdateUnconfirmedException e) {
+            // the reduction may have been applied: releasing the claim would let a retry
+            // reduce stock again, so it is kept until it goes stale
+            log.error("Stock reduction for order {} is unconfirmed, payment {} stays claimed for {}",
+                    orderId, paymentId, paymentClaimTimeout, e);
+            throw e;
+        } catch (ServiceUnavailableException e) {
+            // rejected before the request was sent
+            releasePayment(orderId, paymentId, currentStatus);
+            throw e;
+        } catch (StockUpdateRejectedException e) {
+            log.error("Products refused the stock reduction for order: {}", orderId, e);
+            releasePayment(orderId, paymentId, currentStatus);
+            throw new PaymentRejectedException("Failed to reduce stock. Payment cannot be completed.", e);
         } catch (Exception e) {
-            log.error("Failed to reduce stock for order: {}", orderId, e);
+            log.error("Failed to reduce stock for order {}, payment {} stays claimed for {}",
+                    orderId, paymentId, paymentClaimTimeout, e);
             throw new RuntimeException("Failed to reduce stock. Payment cannot be completed.", e);
         }
 
-        order.setStatus(OrderStatus.PAGADO);
-        Order updatedOrder = orderRepository.save(order);
-
-        notificationServiceClient.sendOrderNotification(
-                updatedOrder.getId(),
-                updatedOrder.getUserEmail(),
-                "ORDER_PAID",
-                String.format("Payment confirmed for order #%d. Your order will be shipped soon.",
-                        updatedOrder.getId()));
+        OrderRow updatedOrder;
+        try {
+            updatedOrder = transactionTemplate.execute(status -> transitionStatus(
+                    orderId, Set.of(currentStatus), OrderStatus.PAGADO, null,
+                    "ORDER_PAID",
+                    String.format("Payment confirmed for order #%d. Your order will be shipped soon.", orderId))
+                    .orElseThrow(() -> new ConcurrentOrderUpdateException(String.format(
+                            "Order %d changed from %s to %s concurrently, please retry",
+                            orderId, currentStatus, currentStatusOf(orderId)))));
+        } catch (RuntimeException e) {
+            restoreStock(orderId, quantities, "payment of order " + orderId + " could not be recorded");
+            releasePayment(orderId, paymentId, currentStatus);
+            throw e;
+        }
 
-        log.info("Order {} marked as PAGADO. PaymentId: {}", orderId, request.getPaymentId());
-        return convertToDTO(updatedOrder);
+        orderMetrics.paymentCallbackApplied();
+        log.info("Order {} marked as PAGADO. PaymentId: {}", orderId, paymentId);
+        OrderDTO paid = orderMapper.toDTO(order);
+        paid.setStatus(updatedOrder.getStatus());
+        paid.setUpdatedAt(updatedOrder.getUpdatedAt());
+        return paid;
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Served from the {@link OrderDetailCache} when possible, so a hit needs no
+     * transaction or connection. Ownership is checked on hits just like on misses:
+     * other users' orders are reported as not found.
+     */
     public OrderDTO getOrderById(Long orderId, UserPrincipal userPrincipal) {
         log.info("Fetching order: {} for user: {}", orderId, userPrincipal.getUserId());
 
-        Order order;
-        if (userPrincipal.isAdmin()) {
-            order = orderRepository.findByIdWithItems(orderId)
-                    .orElseThrow(() -> new OrderNotFoundException(orderId));
-        } else {
-            order = orderRepository.findByIdAndUserId(orderId, userPrincipal.getUserId())
-                    .orElseThrow(() -> new OrderNotFoundException(orderId));
+        OrderDTO cached = orderDetailCache.get(orderId);
+        if (cached != null) {
+            if (!userPrincipal.isAdmin() && !cached.getUserId().equals(userPrincipal.getUserId())) {
+                throw new OrderNotFoundException(orderId);
+            }
+            return cached;
         }
 
-        return convertToDTO(order);
+        OrderDTO order = readOnlyTransactionTemplate.execute(status -> {
+            if (userPrincipal.isAdmin()) {
+                return orderMapper.toDTO(orderRepository.findByIdWithItems(orderId)
+                        .orElseThrow(() -> new OrderNotFoundException(orderId)));
+            }
+            return orderMapper.toDTO(orderRepository.findByIdAndUserId(orderId, userPrincipal.getUserId())
+                    .orElseThrow(() -> new OrderNotFoundException(orderId)));
+        });
+
+        orderDetailCache.put(order);
+        return order;
     }
 
-    @Transactional
+    /**
+     * The transition is a single conditional UPDATE on the statuses that may move
+     * to the requested one; the order is only read back once it has been applied,
+     * or to explain why it was rejected.
+     */
     public OrderDTO updateOrderStatus(Long orderId, UpdateOrderStatusRequest request, UserPrincipal userPrincipal) {
         log.info("Updating order status: {} to {}", orderId, request.getStatus());
 
@@ -200,88 +382,229 @@ public class OrderService {
             throw new AccessDeniedException("Only admins can update order status");
         }
 
-        Order order = orderRepository.findByIdWithItems(orderId)
-                .orElseThrow(() -> new OrderNotFoundException(orderId));
-
-        OrderStatus currentStatus = order.getStatus();
         OrderStatus targetStatus = request.getStatus();
+        String notificationState = getNotificationState(targetStatus);
+        String notificationMessage = String.format("Your order #%d status has been updated to %s",
+                orderId, targetStatus.getDescription());
+
+        OrderDTO updatedOrder = transactionTemplate.execute(status -> transitionStatus(
+                orderId, OrderStatus.getAllowedSources(targetStatus), targetStatus, null,
+                notificationState, notificationMessage)
+                .map(this::toDTOWithItems)
+                .orElseThrow(() -> {
+                    OrderStatus currentStatus = currentStatusOf(orderId);
+                    String allowedTransitions = currentStatus.getAllowedTransitions().stream()
+                            .map(Enum::name)
+                            .reduce((a, b) -> a + ", " + b)
+                            .orElse("none (final state)");
+
+                    return new IllegalStateException(
+                            String.format("Invalid status transition from %s to %s. Allowed transitions: %s",
+                                    currentStatus, targetStatus, allowedTransitions));
+                }));
+
+        log.info("Order status updated successfully: {} to {}", orderId, targetStatus);
+        return updatedOrder;
+    }
 
-        if (!currentStatus.canTransitionTo(targetStatus)) {
-            String allowedTransitions = currentStatus.getAllowedTransitions().stream()
-                    .map(Enum::name)
-                    .reduce((a, b) -> a + ", " + b)
-                    .orElse("none (final state)");
+    /**
+     * The order is cancelled in a short transaction first; stock for paid orders is
+     * restored after commit so a concurrent cancel can never restore it twice. The
+     * unpaid case is tried first, so the common cancel is one conditional UPDATE and
+     * its outcome tells whether there is stock to give back.
+     */
+    public OrderDTO cancelOrder(Long orderId, UserPrincipal userPrincipal) {
+        log.info("Cancelling order: {} by user: {}", orderId, userPrincipal.getUserId());
 
-            throw new IllegalStateException(
-                    String.format("Invalid status transition from %s to %s. Allowed transitions: %s",
-                            currentStatus, targetStatus, allowedTransitions));
-        }
+        String ownerId = userPrincipal.isAdmin() ? null : userPrincipal.getUserId();
+        String notificationMessage = String.format("Your order #%d has been cancelled", orderId);
+
+        CancelledOrder cancelled = transactionTemplate.execute(status -> {
+            Optional<OrderRow> unpaid = transitionStatus(orderId, Set.of(OrderStatus.CREADO),
+                    OrderStatus.CANCELADO, ownerId, "ORDER_CANCELLED", notificationMessage);
+            if (unpaid.isPresent()) {
+                return new CancelledOrder(toDTOWithItems(unpaid.get()), false);
+            }
+            Optional<OrderRow> paid = transitionStatus(orderId, PAID_STATUSES,
+                    OrderStatus.CANCELADO, ownerId, "ORDER_CANCELLED", notificationMessage);
+            if (paid.isPresent()) {
+                return new CancelledOrder(toDTOWithItems(paid.get()), true);
+            }
 
-        order.setStatus(targetStatus);
-        Order updatedOrder = orderRepository.save(order);
+            OrderRow current = orderRepository.findRowById(orderId)
+                    .orElseThrow(() -> new OrderNotFoundException(orderId));
+            if (ownerId != null && !current.getUserId().equals(ownerId)) {
+                throw new AccessDeniedException("You can only cancel your own orders");
+            }
+            throw new IllegalStateException("Order is already cancelled");
+        });
 
-        String notificationState = getNotificationState(targetStatus);
-        String notificationMessage = String.format("Your order #%d status has been updated to %s",
-                updatedOrder.getId(), targetStatus.getDescription());
+        Map<Long, Integer> quantities = toQuantities(cancelled.order());
+        flashSaleStock.restore(quantities);
 
-        notificationServiceClient.sendOrderNotification(
-                updatedOrder.getId(),
-                updatedOrder.getUserEmail(),
-                notificationState,
-                notificationMessage);
+        if (cancelled.paid()) {
+            restoreStock(orderId, quantities, "order " + orderId + " was cancelled");
+        } else {
+            log.info("Order {} was not paid yet, no stock to restore", orderId);
+        }
 
-        log.info("Order status updated successfully: {} from {} to {}",
-                updatedOrder.getId(), currentStatus, targetStatus);
-        return convertToDTO(updatedOrder);
+        log.info("Order {} cancelled successfully by user {}", orderId, userPrincipal.getUserId());
+        return cancelled.order();
     }
 
-    @Transactional
-    public OrderDTO cancelOrder(Long orderId, UserPrincipal userPrincipal) {
-        log.info("Cancelling order: {} by user: {}", orderId, userPrincipal.getUserId());
+    /**
+     * Answers a retried payment callback with a single lookup on the unique
+     * {@code payment_id} index, without loading items or touching stock. A stale
+     * claim by this payment is reported as not applied, so it is taken over.
+     */
+    private Optional<OrderDTO> findAppliedPayment(Long orderId, String paymentId) {
+        return orderRepository.findRowByPaymentId(paymentId)
+                .map(paid -> {
+                    if (!paid.getId().equals(orderId)) {
+                        throw new PaymentRejectedException(String.format(
+                                "Payment %s was already applied to another order", paymentId));
+                    }
+                    if (paid.getStatus() == OrderStatus.CREADO) {
+                        if (isStaleClaim(paid)) {
+                            return null;
+                        }
+                        throw new PaymentInProgressException(orderId, paymentId);
+                    }
+                    return toDTOWithItems(paid);
+                });
+    }
 
-        Order order = orderRepository.findByIdWithItems(orderId)
-                .orElseThrow(() -> new OrderNotFoundException(orderId));
+    /** A claim whose request never finished; {@link #claimPayment} may take it over. */
+    private boolean isStaleClaim(OrderRow order) {
+        return order.getUpdatedAt().isBefore(LocalDateTime.now().minus(paymentClaimTimeout));
+    }
 
-        if (!userPrincipal.isAdmin() && !order.getUserId().equals(userPrincipal.getUserId())) {
-            throw new AccessDeniedException("You can only cancel your own orders");
+    private boolean claimPayment(Long orderId, String paymentId, OrderStatus expectedStatus) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            Integer claimed = transactionTemplate.execute(status -> {
+                int updated = orderRepository.claimPayment(
+                        orderId, paymentId, expectedStatus, now, now.minus(paymentClaimTimeout));
+                if (updated == 1) {
+                    orderDetailCache.invalidateOnCommit(orderId);
+                }
+                return updated;
+            });
+            return claimed != null && claimed == 1;
+        } catch (DataIntegrityViolationException e) {
+            // paymentId is already recorded on some order
+            return false;
         }
+    }
 
-        OrderStatus currentStatus = order.getStatus();
-        if (currentStatus == OrderStatus.CANCELADO) {
-            throw new IllegalStateException("Order is already cancelled");
+    private void releasePayment(Long orderId, String paymentId, OrderStatus expectedStatus) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (orderRepository.releasePayment(orderId, paymentId, expectedStatus) == 1) {
+                    orderDetailCache.invalidateOnCommit(orderId);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Failed to release payment {} claimed on order {}", paymentId, orderId, e);
         }
+    }
 
-        if (currentStatus == OrderStatus.PAGADO || currentStatus == OrderStatus.SHIPPED
-                || currentStatus == OrderStatus.DELIVERED) {
-            List<StockUpdateItem> stockUpdates = order.getItems().stream()
-                    .map(item -> StockUpdateItem.builder()
-                            .id(item.getProductId())
-                            .quantity(item.getQuantity()) // Positive to restore stock
-                            .build())
-                    .toList();
-
-            try {
-                productServiceClient.updateStock(stockUpdates, null);
-                log.info("Stock restored successfully for cancelled order: {}", orderId);
-            } catch (Exception e) {
-                log.error("Failed to restore stock for cancelled order: {}, but order will still be cancelled", orderId,
-                        e);
-            }
-        } else {
-            log.info("Order {} was in status {} (not paid yet), no stock to restore", orderId, currentStatus);
+    /**
+     * Must run inside a transaction. Applies the new status with one conditional
+     * UPDATE that only matches while the order is in one of {@code allowedFrom}
+     * (and owned by {@code ownerId}, if given), so no lock is taken up front: of
+     * two racing transitions the second re-checks the condition once the first
+     * commits and matches nothing. Returns empty in that case. Otherwise the
+     * notification is queued in the same transaction, and the cached details are
+     * dropped once it commits.
+     */
+    private Optional<OrderRow> transitionStatus(Long orderId, Set<OrderStatus> allowedFrom,
+            OrderStatus targetStatus, String ownerId, String notificationState, String notificationMessage) {
+        if (orderRepository.updateStatus(orderId, ownerId, allowedFrom, targetStatus, LocalDateTime.now()) == 0) {
+            return Optional.empty();
         }
 
-        order.setStatus(OrderStatus.CANCELADO);
-        Order updatedOrder = orderRepository.save(order);
+        OrderRow updatedOrder = orderRepository.findRowById(orderId)
+                .orElseThrow(() -> new OrderNotFoundException(orderId));
+        orderMetrics.statusChanged(targetStatus);
+        readYourWrites.recordWrite(updatedOrder.getUserId());
+        orderDetailCache.invalidateOnCommit(orderId);
 
-        notificationServiceClient.sendOrderNotification(
-                updatedOrder.getId(),
-                updatedOrder.getUserEmail(),
-                "ORDER_CANCELLED",
-                String.format("Your order #%d has been cancelled", updatedOrder.getId()));
+        notificationOutboxService.enqueue(
+                orderId, updatedOrder.getUserEmail(), notificationState, notificationMessage);
+        return Optional.of(updatedOrder);
+    }
 
-        log.info("Order {} cancelled successfully by user {}", orderId, userPrincipal.getUserId());
-        return convertToDTO(updatedOrder);
+    private OrderStatus currentStatusOf(Long orderId) {
+        return orderRepository.findRowById(orderId)
+                .map(OrderRow::getStatus)
+                .orElseThrow(() -> new OrderNotFoundException(orderId));
+    }
+
+    private OrderDTO toDTOWithItems(OrderRow order) {
+        return orderMapper.toDTO(order, orderItemRepository.findRowsByOrderIdIn(List.of(order.getId())));
+    }
+
+    private void restoreStock(Long orderId, Map<Long, Integer> quantities, String reason) {
+        try {
+            stockUpdateAggregator.apply(toStockUpdates(quantities, 1));
+            log.info("Stock restored for order {}: {}", orderId, reason);
+        } catch (Exception e) {
+            log.error("Failed to restore stock for order {} ({})", orderId, reason, e);
+        }
+    }
+
+    private static Map<Long, Integer> toQuantities(Order order) {
+        return order.getItems().stream()
+                .collect(Collectors.toMap(OrderItem::getProductId, OrderItem::getQuantity, Integer::sum));
+    }
+
+    private static Map<Long, Integer> toQuantities(OrderDTO order) {
+        return order.getItems().stream()
+                .collect(Collectors.toMap(OrderItemDTO::getProductId, OrderItemDTO::getQuantity, Integer::sum));
+    }
+
+    private static List<StockUpdateItem> toStockUpdates(Map<Long, Integer> quantities, int sign) {
+        return quantities.entrySet().stream()
+                .map(entry -> StockUpdateItem.builder()
+                        .id(entry.getKey())
+                        .quantity(sign * entry.getValue())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * List views are built from projections: the orders of the page plus one query
+     * for all of their items, without creating managed entities.
+     */
+    private Page<OrderDTO> toDTOPage(Page<OrderRow> orders) {
+        Map<Long, List<OrderItemRow>> items = findItemsByOrder(orders.getContent());
+        return orders.map(order -> orderMapper.toDTO(order, items.getOrDefault(order.getId(), List.of())));
+    }
+
+    private CursorPage<OrderDTO> toCursorPage(List<OrderRow> orders, int size) {
+        boolean hasNext = orders.size() > size;
+        List<OrderRow> page = hasNext ? orders.subList(0, size) : orders;
+
+        Map<Long, List<OrderItemRow>> items = findItemsByOrder(page);
+
+        return CursorPage.<OrderDTO>builder()
+                .content(page.stream()
+                        .map(order -> orderMapper.toDTO(order, items.getOrDefault(order.getId(), List.of())))
+                        .toList())
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? OrderCursor.of(page.get(page.size() - 1)).encode() : null)
+                .build();
+    }
+
+    private Map<Long, List<OrderItemRow>> findItemsByOrder(List<OrderRow> orders) {
+        if (orders.isEmpty()) {
+            return Map.of();
+        }
+        return orderItemRepository.findRowsByOrderIdIn(orders.stream().map(OrderRow::getId).toList())
+                .stream()
+                .collect(Collectors.groupingBy(OrderItemRow::getOrderId));
     }
 
     private String getNotificationState(OrderStatus status) {
@@ -294,27 +617,6 @@ public class OrderService {
         };
     }
 
-    private OrderDTO convertToDTO(Order order) {
-        return OrderDTO.builder()
-                .id(order.getId())
-                .userId(order.getUserId())
-                .userEmail(order.getUserEmail())
-                .totalAmount(order.getTotalAmount().doubleValue())
-                .status(order.getStatus())
-                .notes(order.getNotes())
-                .items(order.getItems().stream()
-                        .map(item -> OrderItemDTO.builder()
-                                .id(item.getId())
-                                .productId(item.getProductId())
-                                .productSku(item.getProductSku())
-                                .productName(item.getProductName())
-                                .quantity(item.getQuantity())
-                                .unitPrice(item.getUnitPrice().doubleValue())
-                                .subtotal(item.getSubtotal().doubleValue())
-                                .build())
-                        .toList())
-                .createdAt(order.getCreatedAt())
-                .updatedAt(order.getUpdatedAt())
-                .build();
+    private record CancelledOrder(OrderDTO order, boolean paid) {
     }
 }
@@ -0,0 +1,174 @@
+package com.distributedsystem.orders.service;
+
+import com.distributedsystem.orders.dto.OrderRow;
+import com.distributedsystem.orders.dto.PaymentCallbackRequest;
+import com.distributedsystem.orders.dto.PaymentConfirmationDTO;
+import com.distributedsystem.orders.exception.ConcurrentOrderUpdateException;
+import com.distributedsystem.orders.exception.OrderNotFoundException;
+import com.distributedsystem.orders.exception.PaymentConfirmationNotFoundException;
+import com.distributedsystem.orders.exception.PaymentRejectedException;
+import com.distributedsystem.orders.model.Order;
+import com.distributedsystem.orders.model.OrderStatus;
+import com.distributedsystem.orders.model.PaymentConfirmation;
+import com.distributedsystem.orders.model.PaymentConfirmationStatus;
+import com.distributedsystem.orders.repository.OrderRepository;
+import com.distributedsystem.orders.repository.PaymentConfirmationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Fast path of the payment callback: the confirmation is queued with a single
+ * insert that also checks the order exists, has the paid total, can still be
+ * paid and is not being paid by another payment, and is applied later by
+ * {@link PaymentConfirmationWorker}. Only when the
+ * insert is skipped is the order read, to tell a retried callback (accepted
+ * again) from an invalid one (rejected with the same errors as before). Payments
+ * learns the outcome, including a FAILED one, from {@link #getStatus}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentConfirmationService {
+
+    private static final List<String> PAYABLE_STATUSES = Arrays.stream(OrderStatus.values())
+            .filter(status -> status != OrderStatus.PAGADO && status.canTransitionTo(OrderStatus.PAGADO))
+            .map(Enum::name)
+            .toList();
+
+    private final PaymentConfirmationRepository confirmationRepository;
+    private final OrderRepository orderRepository;
+    private final PaymentConfirmationWorker worker;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderMetrics orderMetrics;
+
+    @Value("${orders.payment.async.enabled:false}")
+    private boolean enabled;
+
+    @Value("${orders.payment.claim-timeout:PT2M}")
+    private Duration paymentClaimTimeout;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns {@code true} if the payment was queued now and {@code false} if the
+     * same paymentId had already been accepted for this order.
+     */
+    public boolean accept(Long orderId, PaymentCallbackRequest request) {
+        if (!"completed".equalsIgnoreCase(request.getStatus())) {
+            log.warn("Payment callback received with non-completed status: {}", request.getStatus());
+            throw new PaymentRejectedException("Payment status must be 'completed'");
+        }
+
+        BigDecimal amount = BigDecimal.valueOf(request.getAmount());
+        Integer inserted = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            return confirmationRepository.enqueue(
+                    orderId,
+                    request.getPaymentId(),
+                    amount,
+                    request.getPaymentMethod(),
+                    request.getTransactionReference(),
+                    PAYABLE_STATUSES,
+                    now,
+                    now.minus(paymentClaimTimeout));
+        });
+
+        if (inserted != null && inserted == 1) {
+            orderMetrics.paymentCallbackQueued();
+            worker.wakeUp();
+            log.info("Payment {} for order {} queued", request.getPaymentId(), orderId);
+            return true;
+        }
+
+        explainSkippedInsert(orderId, request.getPaymentId(), amount);
+        orderMetrics.paymentCallbackDuplicate();
+        log.info("Duplicate payment callback for order: {}, paymentId: {} ignored", orderId, request.getPaymentId());
+        return false;
+    }
+
+    /**
+     * Status of a payment accepted for this order. A payment applied by the
+     * synchronous callback, or whose APPLIED row was purged, is read from the
+     * order; FAILED rows are never purged.
+     */
+    public PaymentConfirmationDTO getStatus(Long orderId, String paymentId) {
+        Optional<PaymentConfirmation> queued = confirmationRepository.findByPaymentId(paymentId);
+        if (queued.isPresent()) {
+            PaymentConfirmation confirmation = queued.get();
+            if (!confirmation.getOrderId().equals(orderId)) {
+                throw new PaymentConfirmationNotFoundException(orderId, paymentId);
+            }
+            return PaymentConfirmationDTO.builder()
+                    .orderId(orderId)
+                    .paymentId(paymentId)
+                    .status(confirmation.getStatus())
+                    .attempts(confirmation.getAttempts())
+                    .lastError(confirmation.getLastError())
+                    .createdAt(confirmation.getCreatedAt())
+                    .completedAt(confirmation.getCompletedAt())
+                    .build();
+        }
+
+        OrderRow paid = orderRepository.findRowByPaymentId(paymentId)
+                .filter(order -> order.getId().equals(orderId))
+                .orElseThrow(() -> new PaymentConfirmationNotFoundException(orderId, paymentId));
+        // still CREADO while a synchronous callback holds the claim
+        boolean applied = paid.getStatus() != OrderStatus.CREADO;
+        return PaymentConfirmationDTO.builder()
+                .orderId(orderId)
+                .paymentId(paymentId)
+                .status(applied ? PaymentConfirmationStatus.APPLIED : PaymentConfirmationStatus.PENDING)
+                .completedAt(applied ? paid.getUpdatedAt() : null)
+                .build();
+    }
+
+    /** Returns if the callback is a retry of an accepted one, throws otherwise. */
+    private void explainSkippedInsert(Long orderId, String paymentId, BigDecimal amount) {
+        Optional<PaymentConfirmation> queued = confirmationRepository.findByPaymentId(paymentId);
+        if (queued.isPresent()) {
+            if (!queued.get().getOrderId().equals(orderId)) {
+                throw new PaymentRejectedException(String.format(
+                        "Payment %s was already applied to another order", paymentId));
+            }
+            return;
+        }
+
+        // applied by the synchronous callback, or its queue entry was purged
+        Optional<Long> paidOrderId = orderRepository.findRowByPaymentId(paymentId).map(OrderRow::getId);
+        if (paidOrderId.isPresent()) {
+            if (!paidOrderId.get().equals(orderId)) {
+                throw new PaymentRejectedException(String.format(
+                        "Payment %s was already applied to another order", paymentId));
+            }
+            return;
+        }
+
+        Order order = orderRepository.findById(orderId).orElseThrow(() -> new OrderNotFoundException(orderId));
+        if (amount.compareTo(order.getTotalAmount()) != 0) {
+            String errorMsg = String.format(
+                    "Payment amount (%.2f) does not match order total (%.2f)", amount, order.getTotalAmount());
+            log.error(errorMsg);
+            throw new PaymentRejectedException(errorMsg);
+        }
+        if (!PAYABLE_STATUSES.contains(order.getStatus().name())) {
+            String errorMsg = String.format("Cannot mark order as paid. Current status: %s", order.getStatus());
+            log.error(errorMsg);
+            throw new PaymentRejectedException(errorMsg);
+        }
+        // payable, so the insert was skipped because another payment holds the order
+        throw new ConcurrentOrderUpdateException(
+                String.format("Order %d is already being paid by another payment", orderId));
+    }
+}
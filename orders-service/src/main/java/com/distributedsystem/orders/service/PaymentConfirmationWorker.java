@@ -0,0 +1,266 @@
+package com.distributedsystem.orders.service;
+
+import com.distributedsystem.orders.dto.PaymentCallbackRequest;
+import com.distributedsystem.orders.dto.PaymentQueueSummary;
+import com.distributedsystem.orders.exception.OrderNotFoundException;
+import com.distributedsystem.orders.exception.PaymentRejectedException;
+import com.distributedsystem.orders.model.PaymentConfirmation;
+import com.distributedsystem.orders.model.PaymentConfirmationStatus;
+import com.distributedsystem.orders.repository.PaymentConfirmationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies queued payment confirmations: stock decrement and status change, via
+ * the same {@link OrderService#handlePaymentCallback} the synchronous callback
+ * uses, so a payment is never applied twice. Each worker claims a few rows by
+ * pushing their next attempt past a lease, like the notification outbox, so
+ * several instances can drain the same table; a failed attempt is only recorded
+ * while the row is still held under that lease. A {@link PaymentRejectedException}
+ * (the order can no longer accept this payment) or a missing order marks the
+ * confirmation FAILED; anything else (Products unavailable, a concurrent change
+ * of the order) is retried with backoff.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentConfirmationWorker {
+
+    private final PaymentConfirmationRepository confirmationRepository;
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${orders.payment.async.enabled:false}")
+    private boolean enabled;
+
+    @Value("${orders.payment.async.workers:4}")
+    private int workers;
+
+    @Value("${orders.payment.async.batch-size:10}")
+    private int batchSize;
+
+    @Value("${orders.payment.async.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${orders.payment.async.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${orders.payment.async.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${orders.payment.async.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    @Value("${orders.payment.async.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${orders.payment.async.retention-hours:72}")
+    private long retentionHours;
+
+    /** Released when a confirmation is queued on this instance, so an idle worker starts at once. */
+    private final Semaphore wakeUps = new Semaphore(0);
+
+    private final List<Thread> threads = new ArrayList<>();
+
+    private volatile boolean running;
+
+    private volatile PaymentQueueSummary queue = new PaymentQueueSummary(0L, null);
+
+    private Timer completionDelay;
+    private Counter applied;
+    private Counter retried;
+    private Counter failed;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Gauge.builder("payments.queue.depth", this, worker -> worker.queue.getPending())
+                .description("Payment confirmations waiting to be applied")
+                .register(meterRegistry);
+        TimeGauge.builder("payments.queue.lag", this, TimeUnit.MILLISECONDS, PaymentConfirmationWorker::oldestAgeMs)
+                .description("Age of the oldest payment confirmation waiting to be applied")
+                .register(meterRegistry);
+        completionDelay = Timer.builder("payments.queue.completion")
+                .description("Time from accepting a payment callback to applying it")
+                .register(meterRegistry);
+        applied = processed("applied");
+        retried = processed("retried");
+        failed = processed("failed");
+
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(this::workLoop, "payment-worker-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        threads.forEach(Thread::interrupt);
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public void wakeUp() {
+        if (wakeUps.availablePermits() < workers) {
+            wakeUps.release();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${orders.payment.async.stats-interval-ms:5000}")
+    public void refreshQueueStats() {
+        if (enabled) {
+            queue = confirmationRepository.summarize(PaymentConfirmationStatus.PENDING);
+        }
+    }
+
+    @Scheduled(cron = "${orders.payment.async.purge-cron:0 30 * * * *}")
+    public void purgeApplied() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+        Integer purged = transactionTemplate.execute(status -> confirmationRepository
+                .deleteByStatusAndCompletedAtBefore(PaymentConfirmationStatus.APPLIED, before));
+        if (purged != null && purged > 0) {
+            log.info("Purged {} applied payment confirmations older than {}", purged, before);
+        }
+    }
+
+    private void workLoop() {
+        while (running) {
+            try {
+                LocalDateTime leasedUntil = LocalDateTime.now().plus(leaseMs, ChronoUnit.MILLIS)
+                        .truncatedTo(ChronoUnit.MICROS);
+                List<PaymentConfirmation> batch = claimBatch(leasedUntil);
+                batch.forEach(confirmation -> apply(confirmation, leasedUntil));
+                if (batch.size() < batchSize) {
+                    wakeUps.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Payment worker failed, retrying shortly", e);
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /** {@code leasedUntil} is stored as is (PostgreSQL keeps microseconds), so outcomes can be fenced on it. */
+    private List<PaymentConfirmation> claimBatch(LocalDateTime leasedUntil) {
+        return transactionTemplate.execute(status -> {
+            List<PaymentConfirmation> batch = confirmationRepository.lockNextBatch(LocalDateTime.now(), batchSize);
+            batch.forEach(confirmation -> confirmation.setNextAttemptAt(leasedUntil));
+            return batch;
+        });
+    }
+
+    private void apply(PaymentConfirmation confirmation, LocalDateTime leasedUntil) {
+        PaymentCallbackRequest request = PaymentCallbackRequest.builder()
+                .paymentId(confirmation.getPaymentId())
+                .status("completed")
+                .amount(confirmation.getAmount().doubleValue())
+                .paymentMethod(confirmation.getPaymentMethod())
+                .transactionReference(confirmation.getTransactionReference())
+                .build();
+
+        try {
+            orderService.handlePaymentCallback(confirmation.getOrderId(), request);
+        } catch (PaymentRejectedException | OrderNotFoundException e) {
+            log.error("Payment {} for order {} cannot be applied: {}",
+                    confirmation.getPaymentId(), confirmation.getOrderId(), e.getMessage());
+            recordFailedAttempt(confirmation, leasedUntil, PaymentConfirmationStatus.FAILED,
+                    confirmation.getAttempts(), e);
+            return;
+        } catch (RuntimeException e) {
+            int attempts = confirmation.getAttempts() + 1;
+            if (attempts >= maxAttempts) {
+                log.error("Giving up on payment {} for order {} after {} attempts",
+                        confirmation.getPaymentId(), confirmation.getOrderId(), attempts, e);
+                recordFailedAttempt(confirmation, leasedUntil, PaymentConfirmationStatus.FAILED, attempts, e);
+            } else {
+                log.warn("Payment {} for order {} will be retried (attempt {}): {}",
+                        confirmation.getPaymentId(), confirmation.getOrderId(), attempts, e.getMessage());
+                recordFailedAttempt(confirmation, leasedUntil, PaymentConfirmationStatus.PENDING, attempts, e);
+            }
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> confirmationRepository.markApplied(
+                confirmation.getId(), PaymentConfirmationStatus.APPLIED, now));
+        applied.increment();
+        completionDelay.record(Duration.between(confirmation.getCreatedAt(), now));
+    }
+
+    private void recordFailedAttempt(PaymentConfirmation confirmation, LocalDateTime leasedUntil,
+            PaymentConfirmationStatus status, int attempts, RuntimeException error) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean done = status != PaymentConfirmationStatus.PENDING;
+        Integer updated = transactionTemplate.execute(tx -> confirmationRepository.recordFailedAttempt(
+                confirmation.getId(),
+                leasedUntil,
+                status,
+                attempts,
+                done ? confirmation.getNextAttemptAt() : now.plus(backoffMs(attempts), ChronoUnit.MILLIS),
+                done ? now : null,
+                error.getMessage()));
+        if (updated == null || updated == 0) {
+            log.warn("Lease on payment {} for order {} ran out, its outcome is left to the worker that took it over",
+                    confirmation.getPaymentId(), confirmation.getOrderId());
+            return;
+        }
+        (done ? failed : retried).increment();
+    }
+
+    private double oldestAgeMs() {
+        LocalDateTime oldest = queue.getOldestCreatedAt();
+        return oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis());
+    }
+
+    private long backoffMs(int attempts) {
+        long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 20));
+        long jitter = ThreadLocalRandom.current().nextLong(backoff / 5 + 1);
+        return backoff - backoff / 10 + jitter;
+    }
+
+    private Counter processed(String outcome) {
+        return Counter.builder("payments.queue.processed")
+                .description("Queued payment confirmations by outcome of the attempt")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -1,32 +1,120 @@
 package com.distributedsystem.orders.service;
 
+import com.distributedsystem.orders.config.ProductReadProperties;
 import com.distributedsystem.orders.dto.ProductDTO;
 import com.distributedsystem.orders.dto.StockUpdateRequest;
 import com.distributedsystem.orders.dto.StockUpdateItem;
 import com.distributedsystem.orders.exception.ProductNotFoundException;
+import com.distributedsystem.orders.exception.ServiceUnavailableException;
+import com.distributedsystem.orders.exception.StockUpdateRejectedException;
+import com.distributedsystem.orders.exception.StockUpdateUnconfirmedException;
+import com.distributedsystem.orders.timing.RequestTimings;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.distributedsystem.orders.timing.RequestTimings.Segment.PRODUCTS;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ProductServiceClient {
 
+    @Qualifier("productsRestTemplate")
     private final RestTemplate restTemplate;
 
+    @Qualifier("productLookupExecutor")
+    private final Executor productLookupExecutor;
+
+    @Qualifier("productAttemptExecutor")
+    private final Executor productAttemptExecutor;
+
+    private final ProductReadProperties readProperties;
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    private final BulkheadRegistry bulkheadRegistry;
+
+    private final MeterRegistry meterRegistry;
+
     @Value("${products.service.url}")
     private String productsServiceUrl;
 
+    @Value("${products.service.coalescing.enabled:true}")
+    private boolean coalescingEnabled;
+
+    @Value("${products.service.coalescing.freshness:PT0.05S}")
+    private Duration coalescingFreshness;
+
+    private DownstreamGuard guard;
+
+    private HedgedRetrier reads;
+
+    private SingleFlight<Long, ProductDTO> lookups;
+
+    @PostConstruct
+    public void init() {
+        this.guard = new DownstreamGuard("products", "Products",
+                circuitBreakerRegistry, bulkheadRegistry, meterRegistry);
+        this.reads = new HedgedRetrier("products", readProperties, productAttemptExecutor, meterRegistry);
+        if (coalescingEnabled) {
+            this.lookups = new SingleFlight<>("products", coalescingFreshness,
+                    ProductServiceClient::isShareableFailure, meterRegistry);
+        }
+    }
+
+    /**
+     * Concurrent lookups of the same product share one request to the Products
+     * Service, and its answer is reused for a few milliseconds afterwards so stock
+     * stays essentially live. The request carries the token of whichever caller
+     * made it, so a 401 or 403 is not passed on to the others; they retry with
+     * their own token.
+     */
     public ProductDTO getProduct(Long productId, String jwtToken) {
+        if (lookups == null) {
+            return fetchProduct(productId, jwtToken);
+        }
+        try (RequestTimings.Stopwatch ignored = RequestTimings.time(PRODUCTS)) {
+            return lookups.get(productId, () -> fetchProduct(productId, jwtToken));
+        }
+    }
+
+    private static boolean isShareableFailure(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpClientErrorException e
+                    && (e.getStatusCode().isSameCodeAs(HttpStatus.UNAUTHORIZED)
+                    || e.getStatusCode().isSameCodeAs(HttpStatus.FORBIDDEN))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ProductDTO fetchProduct(Long productId, String jwtToken) {
         try {
-            String url = productsServiceUrl + "/api/products/" + productId;
+            String url = productsServiceUrl + "/api/products/{id}";
 
             HttpHeaders headers = new HttpHeaders();
             headers.set("Authorization", "Bearer " + jwtToken);
@@ -34,11 +122,15 @@ public class ProductServiceClient {
 
             HttpEntity<Void> entity = new HttpEntity<>(headers);
 
-            ResponseEntity<ProductResponse> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    ProductResponse.class);
+            ResponseEntity<ProductResponse> response;
+            try (RequestTimings.Stopwatch ignored = RequestTimings.time(PRODUCTS)) {
+                response = reads.execute(() -> guard.call(() -> restTemplate.exchange(
+                        url,
+                        HttpMethod.GET,
+                        entity,
+                        ProductResponse.class,
+                        productId)));
+            }
 
             if (response.getBody() != null && response.getBody().getData() != null) {
                 return response.getBody().getData();
@@ -48,12 +140,160 @@ public class ProductServiceClient {
         } catch (HttpClientErrorException.NotFound e) {
             log.error("Product not found: {}", productId);
             throw new ProductNotFoundException(productId);
+        } catch (ServiceUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error fetching product {}: {}", productId, e.getMessage());
             throw new RuntimeException("Error communicating with Products Service", e);
         }
     }
 
+    /**
+     * Looks up several products with a single round-trip to the Products Service.
+     * Duplicate ids are fetched once. Products the bulk endpoint cannot fully
+     * describe (e.g. inactive ones) are fetched individually, and if the bulk
+     * call fails altogether the lookups are fanned out concurrently instead.
+     */
+    public Map<Long, ProductDTO> getProducts(Collection<Long> productIds, String jwtToken) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(productIds);
+        if (uniqueIds.size() <= 1) {
+            Map<Long, ProductDTO> products = new LinkedHashMap<>();
+            uniqueIds.forEach(id -> products.put(id, getProduct(id, jwtToken)));
+            return products;
+        }
+
+        Map<Long, ProductDTO> products = new LinkedHashMap<>();
+        try {
+            products.putAll(getProductsInBulk(uniqueIds, jwtToken));
+        } catch (ServiceUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("Bulk product lookup failed, falling back to concurrent lookups: {}", e.getMessage());
+        }
+
+        Set<Long> missingIds = new LinkedHashSet<>(uniqueIds);
+        missingIds.removeAll(products.keySet());
+        if (!missingIds.isEmpty()) {
+            products.putAll(getProductsConcurrently(missingIds, jwtToken));
+        }
+
+        Map<Long, ProductDTO> ordered = new LinkedHashMap<>();
+        uniqueIds.forEach(id -> ordered.put(id, products.get(id)));
+        return ordered;
+    }
+
+    private Map<Long, ProductDTO> getProductsInBulk(Set<Long> productIds, String jwtToken) {
+        String url = productsServiceUrl + "/api/products/validate-stock";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + jwtToken);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        List<StockUpdateItem> items = productIds.stream()
+                .map(id -> StockUpdateItem.builder().id(id).quantity(1).build())
+                .toList();
+
+        HttpEntity<StockUpdateRequest> entity = new HttpEntity<>(
+                StockUpdateRequest.builder().items(items).build(), headers);
+
+        // validate-stock only reads, so it is retried and hedged like a GET
+        ResponseEntity<StockValidationResponse> response;
+        try (RequestTimings.Stopwatch ignored = RequestTimings.time(PRODUCTS)) {
+            response = reads.execute(() -> guard.call(() -> restTemplate.exchange(
+                    url,
+                    HttpMethod.POST,
+                    entity,
+                    StockValidationResponse.class)));
+        }
+
+        Map<Long, ProductDTO> products = new LinkedHashMap<>();
+        if (response.getBody() == null || response.getBody().getData() == null) {
+            return products;
+        }
+
+        for (StockValidationEntry entry : response.getBody().getData()) {
+            if (entry.getProductId() == null || entry.getError() != null) {
+                continue;
+            }
+            products.put(entry.getProductId(), ProductDTO.builder()
+                    .id(entry.getProductId())
+                    .sku(entry.getProductSku())
+                    .name(entry.getProductName())
+                    .price(entry.getPrice())
+                    .stock(entry.getAvailableStock())
+                    .active(true)
+                    .build());
+        }
+
+        log.debug("Bulk lookup resolved {} of {} products", products.size(), productIds.size());
+        return products;
+    }
+
+    /**
+     * Lookups the pool cannot take any more run on the caller's thread, so a
+     * saturated pool slows an order down instead of failing it. If any lookup
+     * fails, the ones still queued are cancelled.
+     */
+    private Map<Long, ProductDTO> getProductsConcurrently(Set<Long> productIds, String jwtToken) {
+        Map<Long, CompletableFuture<ProductDTO>> futures = new LinkedHashMap<>();
+        Map<Long, ProductDTO> products = new LinkedHashMap<>();
+        try (RequestTimings.Stopwatch ignored = RequestTimings.time(PRODUCTS)) {
+            for (Long productId : productIds) {
+                futures.put(productId, lookupAsync(productId, jwtToken));
+            }
+            futures.forEach((id, future) -> products.put(id, future.join()));
+        } catch (RuntimeException e) {
+            futures.values().forEach(future -> future.cancel(false));
+            if (e instanceof CompletionException && e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return products;
+    }
+
+    private CompletableFuture<ProductDTO> lookupAsync(Long productId, String jwtToken) {
+        try {
+            return CompletableFuture.supplyAsync(() -> getProduct(productId, jwtToken), productLookupExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(getProduct(productId, jwtToken));
+        }
+    }
+
+    /**
+     * One page of the catalog, most recently updated products first. Used to keep
+     * the local product catalog in sync.
+     */
+    public List<ProductDTO> listProductsByLastUpdate(int page, int pageSize, String jwtToken) {
+        try {
+            String url = productsServiceUrl
+                    + "/api/products?sort=updated_at&order=desc&page={page}&per_page={pageSize}";
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("Authorization", "Bearer " + jwtToken);
+
+            HttpEntity<Void> entity = new HttpEntity<>(headers);
+
+            ResponseEntity<ProductListResponse> response = reads.execute(() -> guard.call(() -> restTemplate.exchange(
+                    url,
+                    HttpMethod.GET,
+                    entity,
+                    ProductListResponse.class,
+                    page,
+                    pageSize)));
+
+            if (response.getBody() == null || response.getBody().getData() == null) {
+                return List.of();
+            }
+            return response.getBody().getData();
+        } catch (ServiceUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error listing products (page {}): {}", page, e.getMessage());
+            throw new RuntimeException("Error communicating with Products Service", e);
+        }
+    }
+
     public void updateStock(List<StockUpdateItem> items, String jwtToken) {
         try {
             String url = productsServiceUrl + "/api/products/update-stock";
@@ -68,21 +308,30 @@ public class ProductServiceClient {
 
             HttpEntity<StockUpdateRequest> entity = new HttpEntity<>(request, headers);
 
-            ResponseEntity<StockUpdateResponse> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.POST,
-                    entity,
-                    StockUpdateResponse.class);
+            ResponseEntity<StockUpdateResponse> response;
+            try (RequestTimings.Stopwatch ignored = RequestTimings.time(PRODUCTS)) {
+                response = guard.call(() -> restTemplate.exchange(
+                        url,
+                        HttpMethod.POST,
+                        entity,
+                        StockUpdateResponse.class));
+            }
 
             if (response.getBody() != null && response.getBody().isSuccess()) {
                 log.info("Stock updated successfully: {}", response.getBody().getData());
             } else {
                 log.error("Stock update failed: {}", response.getBody());
-                throw new RuntimeException("Stock update failed");
+                throw new StockUpdateRejectedException("Stock update failed", null);
             }
+        } catch (ServiceUnavailableException | StockUpdateRejectedException e) {
+            throw e;
+        } catch (HttpClientErrorException e) {
+            log.error("Stock update rejected: {}", e.getMessage());
+            throw new StockUpdateRejectedException("Stock update rejected by Products Service", e);
         } catch (Exception e) {
+            // a timeout or a 5xx: Products may or may not have applied the update
             log.error("Error updating stock: {}", e.getMessage());
-            throw new RuntimeException("Error updating stock in Products Service", e);
+            throw new StockUpdateUnconfirmedException(e);
         }
     }
 
@@ -92,6 +341,37 @@ public class ProductServiceClient {
         private ProductDTO data;
     }
 
+    @lombok.Data
+    private static class ProductListResponse {
+        private boolean success;
+        private List<ProductDTO> data;
+    }
+
+    @lombok.Data
+    private static class StockValidationResponse {
+        private boolean success;
+        private List<StockValidationEntry> data;
+    }
+
+    @lombok.Data
+    private static class StockValidationEntry {
+        @JsonProperty("product_id")
+        private Long productId;
+
+        @JsonProperty("product_sku")
+        private String productSku;
+
+        @JsonProperty("product_name")
+        private String productName;
+
+        @JsonProperty("available_stock")
+        private Integer availableStock;
+
+        private Double price;
+
+        private String error;
+    }
+
     @lombok.Data
     private static class StockUpdateResponse {
         private boolean success;
@@ -0,0 +1,44 @@
+package com.distributedsystem.orders.service;
+
+/**
+ * Token bucket for extra attempts. Every read deposits {@code ratio} tokens and
+ * the bucket also refills at {@code minPerSecond}; a retry or hedge needs a whole
+ * token. This caps extra load at roughly {@code ratio} of the traffic, plus a
+ * small constant floor.
+ */
+class RetryBudget {
+
+    private final double ratio;
+    private final double minPerSecond;
+    private final double maxBalance;
+
+    private double balance;
+    private long lastRefillNanos = System.nanoTime();
+
+    RetryBudget(double ratio, double minPerSecond, double maxBalance) {
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+        this.maxBalance = maxBalance;
+        this.balance = maxBalance;
+    }
+
+    synchronized void recordRead() {
+        refill();
+        balance = Math.min(maxBalance, balance + ratio);
+    }
+
+    synchronized boolean tryAcquire() {
+        refill();
+        if (balance < 1) {
+            return false;
+        }
+        balance -= 1;
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        balance = Math.min(maxBalance, balance + (now - lastRefillNanos) / 1e9 * minPerSecond);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,121 @@
+package com.distributedsystem.orders.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent loads of the same key into one. The first caller runs
+ * the load on its own thread; callers arriving while it is in flight, or within
+ * {@code freshness} after it succeeded, get the same result (or the same error).
+ * Failed loads are never reused by later callers. Errors that {@code shareable}
+ * rejects, like an authorization failure that depends on the leader's own
+ * credentials, are not handed to the callers waiting on it: each of them runs
+ * its own load instead.
+ */
+class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final long freshnessNanos;
+    private final Predicate<Throwable> shareable;
+
+    private final Counter loads;
+    private final Counter shared;
+
+    SingleFlight(String name, Duration freshness, Predicate<Throwable> shareable, MeterRegistry meterRegistry) {
+        this.freshnessNanos = freshness.toNanos();
+        this.shareable = shareable;
+        this.loads = lookups(name, "load", meterRegistry);
+        this.shared = lookups(name, "shared", meterRegistry);
+    }
+
+    V get(K key, Supplier<V> load) {
+        while (true) {
+            Flight<V> existing = flights.get(key);
+            if (existing != null && existing.isUsable(freshnessNanos)) {
+                shared.increment();
+                return join(existing, load);
+            }
+
+            Flight<V> flight = new Flight<>();
+            boolean leader = existing == null
+                    ? flights.putIfAbsent(key, flight) == null
+                    : flights.replace(key, existing, flight);
+            if (!leader) {
+                continue;
+            }
+
+            loads.increment();
+            try {
+                V value = load.get();
+                flight.complete(value);
+                return value;
+            } catch (Throwable e) {
+                flights.remove(key, flight);
+                flight.fail(e);
+                throw e;
+            } finally {
+                if (freshnessNanos <= 0) {
+                    flights.remove(key, flight);
+                }
+            }
+        }
+    }
+
+    private V join(Flight<V> flight, Supplier<V> load) {
+        try {
+            return flight.result.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (!shareable.test(cause)) {
+                loads.increment();
+                return load.get();
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private static Counter lookups(String name, String source, MeterRegistry meterRegistry) {
+        return Counter.builder("downstream.lookups")
+                .description("Lookups that went to the service (load) or reused a concurrent one (shared)")
+                .tag("service", name)
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    private static final class Flight<V> {
+
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+
+        private volatile long completedAt;
+
+        void complete(V value) {
+            completedAt = System.nanoTime();
+            result.complete(value);
+        }
+
+        void fail(Throwable e) {
+            result.completeExceptionally(e);
+        }
+
+        boolean isUsable(long freshnessNanos) {
+            if (!result.isDone()) {
+                return true;
+            }
+            return !result.isCompletedExceptionally() && System.nanoTime() - completedAt < freshnessNanos;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.distributedsystem.orders.service;
+
+import com.distributedsystem.orders.dto.StockUpdateItem;
+import com.distributedsystem.orders.exception.ServiceUnavailableException;
+import com.distributedsystem.orders.exception.StockUpdateRejectedException;
+import com.distributedsystem.orders.exception.StockUpdateUnconfirmedException;
+import com.distributedsystem.orders.timing.RequestTimings;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Merges concurrent stock deltas per product and sends them to the Products
+ * Service as one {@code update-stock} request. Deltas are collected for up to
+ * {@code window} (or until {@code max-batch-size} orders are waiting), and
+ * requests that arrive while a batch is in flight go into the next one.
+ * <p>
+ * {@link #apply} blocks until the batch holding the caller's deltas has been
+ * applied, so a payment is only confirmed once its stock is reduced. Products
+ * applies a batch all-or-nothing; if a merged batch is rejected, its orders
+ * are retried one by one so only the failing order sees the error. Any other
+ * failure fails all of its orders at once: with {@link ServiceUnavailableException}
+ * if the request was never sent, or with {@link StockUpdateUnconfirmedException}
+ * after a timeout or a 5xx, when the batch may or may not have been applied.
+ * A caller waits at most {@code wait-timeout}; if its deltas were still queued by
+ * then they are withdrawn, otherwise their outcome is unconfirmed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockUpdateAggregator {
+
+    private final ProductServiceClient productServiceClient;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${products.stock-updates.coalescing-enabled:true}")
+    private boolean coalescingEnabled;
+
+    @Value("${products.stock-updates.window:PT0S}")
+    private Duration window;
+
+    @Value("${products.stock-updates.max-batch-size:200}")
+    private int maxBatchSize;
+
+    @Value("${products.stock-updates.wait-timeout:PT20S}")
+    private Duration waitTimeout;
+
+    private final BlockingQueue<PendingUpdate> queue = new LinkedBlockingQueue<>();
+
+    private volatile boolean running;
+
+    private Thread flusher;
+
+    private DistributionSummary batchSize;
+
+    @PostConstruct
+    public void start() {
+        if (!coalescingEnabled) {
+            return;
+        }
+        batchSize = DistributionSummary.builder("stock.updates.batch.size")
+                .description("Orders whose stock deltas were sent in one update-stock request")
+                .register(meterRegistry);
+        running = true;
+        flusher = new Thread(this::flushLoop, "stock-update-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+
+        List<PendingUpdate> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flushSafely(remaining);
+        }
+    }
+
+    /**
+     * Applies the deltas as part of the next batch and returns once Products has
+     * accepted them; throws the Products error otherwise.
+     */
+    public void apply(List<StockUpdateItem> items) {
+        if (!running) {
+            productServiceClient.updateStock(items, null);
+            return;
+        }
+
+        PendingUpdate update = new PendingUpdate(items, new CompletableFuture<>());
+        queue.add(update);
+        if (!running && queue.remove(update)) {
+            // stop() drained the queue before this update got in
+            productServiceClient.updateStock(items, null);
+            return;
+        }
+        try (RequestTimings.Stopwatch ignored = RequestTimings.time(RequestTimings.Segment.PRODUCTS)) {
+            update.result().get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new StockUpdateUnconfirmedException(e.getCause());
+        } catch (TimeoutException e) {
+            throw withdraw(update, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw withdraw(update, e);
+        }
+    }
+
+    /** Deltas still in the queue were never sent; otherwise they may yet be applied. */
+    private ServiceUnavailableException withdraw(PendingUpdate update, Exception cause) {
+        if (queue.remove(update)) {
+            return new ServiceUnavailableException("Products", cause);
+        }
+        log.warn("Gave up waiting for the stock update batch after {}", waitTimeout);
+        return new StockUpdateUnconfirmedException(cause);
+    }
+
+    private void flushLoop() {
+        List<PendingUpdate> batch = new ArrayList<>();
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + window.toNanos();
+                while (batch.size() < maxBatchSize) {
+                    PendingUpdate next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+
+            if (!batch.isEmpty()) {
+                flushSafely(batch);
+                batch = new ArrayList<>();
+            }
+        }
+    }
+
+    /** Keeps the flusher alive and never leaves a caller without an answer. */
+    private void flushSafely(List<PendingUpdate> batch) {
+        try {
+            flush(batch);
+        } catch (Throwable e) {
+            log.error("Stock update batch of {} orders failed unexpectedly", batch.size(), e);
+            StockUpdateUnconfirmedException failure = new StockUpdateUnconfirmedException(e);
+            batch.forEach(update -> update.result().completeExceptionally(failure));
+        }
+    }
+
+    private void flush(List<PendingUpdate> batch) {
+        batchSize.record(batch.size());
+        Map<Long, Integer> merged = new LinkedHashMap<>();
+        for (PendingUpdate update : batch) {
+            for (StockUpdateItem item : update.items()) {
+                merged.merge(item.getId(), item.getQuantity(), Integer::sum);
+            }
+        }
+
+        List<StockUpdateItem> items = new ArrayList<>(merged.size());
+        merged.forEach((productId, quantity) -> {
+            if (quantity != 0) {
+                items.add(StockUpdateItem.builder().id(productId).quantity(quantity).build());
+            }
+        });
+
+        try {
+            if (!items.isEmpty()) {
+                productServiceClient.updateStock(items, null);
+            }
+            log.debug("Applied stock deltas of {} orders as {} product updates", batch.size(), items.size());
+            batch.forEach(update -> update.result().complete(null));
+        } catch (RuntimeException e) {
+            // only a definitive rejection is safe to replay: after a timeout or a 5xx
+            // the batch may already have been applied
+            if (batch.size() == 1 || !(e instanceof StockUpdateRejectedException)) {
+                batch.forEach(update -> update.result().completeExceptionally(e));
+                return;
+            }
+            log.warn("Batched stock update of {} orders failed, applying them one by one: {}",
+                    batch.size(), e.getMessage());
+            for (PendingUpdate update : batch) {
+                try {
+                    productServiceClient.updateStock(update.items(), null);
+                    update.result().complete(null);
+                } catch (RuntimeException single) {
+                    update.result().completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    private record PendingUpdate(List<StockUpdateItem> items, CompletableFuture<Void> result) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.distributedsystem.orders.timing;
+
+import org.hibernate.SessionEventListener;
+
+import static com.distributedsystem.orders.timing.RequestTimings.Segment.DB;
+
+/**
+ * Adds JDBC time (connection acquisition, statement preparation and execution,
+ * batches) to the {@code db} segment. Registered for every Hibernate session
+ * through {@code hibernate.session.events.auto}.
+ */
+public class DbTimingSessionListener implements SessionEventListener {
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        RequestTimings.enter(DB);
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        RequestTimings.exit(DB);
+    }
+
+    @Override
+    public void jdbcPrepareStatementStart() {
+        RequestTimings.enter(DB);
+    }
+
+    @Override
+    public void jdbcPrepareStatementEnd() {
+        RequestTimings.exit(DB);
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        RequestTimings.enter(DB);
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestTimings.exit(DB);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        RequestTimings.enter(DB);
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestTimings.exit(DB);
+    }
+}
@@ -0,0 +1,143 @@
+package com.distributedsystem.orders.timing;
+
+/**
+ * Time spent per segment (JWT, database, Products, notifications) by the request
+ * running on the current thread. Instrumented code calls {@link #time} or
+ * {@link #enter}/{@link #exit}; when no request is being timed these are a single
+ * ThreadLocal read. Nested calls of the same segment are counted once, so a
+ * client method calling another instrumented method does not double count.
+ * Work handed to other threads is only seen through the caller waiting on it.
+ */
+public final class RequestTimings {
+
+    public enum Segment {
+        JWT("jwt"),
+        DB("db"),
+        PRODUCTS("products"),
+        NOTIFY("notify");
+
+        private final String metricName;
+
+        Segment(String metricName) {
+            this.metricName = metricName;
+        }
+
+        public String metricName() {
+            return metricName;
+        }
+    }
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private static final Stopwatch NOOP = () -> { };
+
+    private static final Segment[] SEGMENTS = Segment.values();
+
+    private final long startedAt = System.nanoTime();
+    private final long[] nanos = new long[SEGMENTS.length];
+    private final int[] calls = new int[SEGMENTS.length];
+    private final int[] depth = new int[SEGMENTS.length];
+    private final long[] enteredAt = new long[SEGMENTS.length];
+    private final Stopwatch[] stopwatches = new Stopwatch[SEGMENTS.length];
+
+    private RequestTimings() {
+        for (Segment segment : SEGMENTS) {
+            stopwatches[segment.ordinal()] = () -> exitSegment(segment);
+        }
+    }
+
+    static RequestTimings begin() {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Starts timing {@code segment}; close the returned stopwatch when done.
+     */
+    public static Stopwatch time(Segment segment) {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null) {
+            return NOOP;
+        }
+        timings.enterSegment(segment);
+        return timings.stopwatches[segment.ordinal()];
+    }
+
+    public static void enter(Segment segment) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.enterSegment(segment);
+        }
+    }
+
+    public static void exit(Segment segment) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.exitSegment(segment);
+        }
+    }
+
+    private void enterSegment(Segment segment) {
+        int i = segment.ordinal();
+        if (depth[i]++ == 0) {
+            enteredAt[i] = System.nanoTime();
+            calls[i]++;
+        }
+    }
+
+    private void exitSegment(Segment segment) {
+        int i = segment.ordinal();
+        if (depth[i] > 0 && --depth[i] == 0) {
+            nanos[i] += System.nanoTime() - enteredAt[i];
+        }
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startedAt;
+    }
+
+    long nanos(Segment segment) {
+        return nanos[segment.ordinal()];
+    }
+
+    int calls(Segment segment) {
+        return calls[segment.ordinal()];
+    }
+
+    /**
+     * Value for the {@code Server-Timing} header, e.g.
+     * {@code jwt;dur=0.1, db;dur=4.2, products;dur=31.0, notify;dur=0.6, total;dur=38.9}.
+     */
+    String toServerTiming() {
+        StringBuilder header = new StringBuilder(96);
+        for (Segment segment : SEGMENTS) {
+            if (calls[segment.ordinal()] > 0) {
+                appendMetric(header, segment.metricName(), nanos[segment.ordinal()]);
+            }
+        }
+        appendMetric(header, "total", elapsedNanos());
+        return header.toString();
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long nanos) {
+        if (!header.isEmpty()) {
+            header.append(", ");
+        }
+        header.append(name).append(";dur=").append(Math.round(nanos / 100_000.0) / 10.0);
+    }
+
+    @FunctionalInterface
+    public interface Stopwatch extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
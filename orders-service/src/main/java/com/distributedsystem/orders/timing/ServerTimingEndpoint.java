@@ -0,0 +1,48 @@
+package com.distributedsystem.orders.timing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/servertiming}: shows the timing switches and lets admins
+ * change them without a restart.
+ */
+@Component
+@Endpoint(id = "servertiming")
+@RequiredArgsConstructor
+public class ServerTimingEndpoint {
+
+    private final ServerTimingSettings settings;
+
+    @ReadOperation
+    public Map<String, Object> settings() {
+        Map<String, Object> current = new LinkedHashMap<>();
+        current.put("enabled", settings.isEnabled());
+        current.put("headerEnabled", settings.isHeaderEnabled());
+        current.put("slowThresholdMs", settings.getSlowThreshold().toMillis());
+        return current;
+    }
+
+    @WriteOperation
+    public Map<String, Object> update(@Nullable Boolean enabled, @Nullable Boolean headerEnabled,
+            @Nullable Long slowThresholdMs) {
+        if (enabled != null) {
+            settings.setEnabled(enabled);
+        }
+        if (headerEnabled != null) {
+            settings.setHeaderEnabled(headerEnabled);
+        }
+        if (slowThresholdMs != null) {
+            settings.setSlowThreshold(Duration.ofMillis(slowThresholdMs));
+        }
+        return settings();
+    }
+}
@@ -0,0 +1,77 @@
+package com.distributedsystem.orders.timing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+import static com.distributedsystem.orders.timing.RequestTimings.Segment.DB;
+import static com.distributedsystem.orders.timing.RequestTimings.Segment.JWT;
+import static com.distributedsystem.orders.timing.RequestTimings.Segment.NOTIFY;
+import static com.distributedsystem.orders.timing.RequestTimings.Segment.PRODUCTS;
+
+/**
+ * Times each request from before the security chain until it completes. The
+ * {@code Server-Timing} header is normally added by {@link ServerTimingResponseAdvice}
+ * just before the body is written; responses without a body get it here.
+ * Requests slower than the configured threshold are logged with their breakdown.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final ServerTimingSettings settings;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+
+        if (!settings.isEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RequestTimings timings = RequestTimings.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestTimings.end();
+            if (settings.isHeaderEnabled() && !response.isCommitted()
+                    && !response.containsHeader(SERVER_TIMING_HEADER)) {
+                response.setHeader(SERVER_TIMING_HEADER, timings.toServerTiming());
+            }
+            long elapsed = timings.elapsedNanos();
+            if (elapsed >= settings.getSlowThreshold().toNanos()) {
+                logSlowRequest(request, response, timings, elapsed);
+            }
+        }
+    }
+
+    private void logSlowRequest(HttpServletRequest request, HttpServletResponse response,
+            RequestTimings timings, long elapsed) {
+        log.warn("Slow request method={} uri={} status={} total_ms={} jwt_ms={} db_ms={} db_calls={} "
+                        + "products_ms={} products_calls={} notify_ms={} notify_calls={}",
+                request.getMethod(), request.getRequestURI(), response.getStatus(),
+                millis(elapsed), millis(timings.nanos(JWT)),
+                millis(timings.nanos(DB)), timings.calls(DB),
+                millis(timings.nanos(PRODUCTS)), timings.calls(PRODUCTS),
+                millis(timings.nanos(NOTIFY)), timings.calls(NOTIFY));
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
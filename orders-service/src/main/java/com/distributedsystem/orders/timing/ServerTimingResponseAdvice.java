@@ -0,0 +1,37 @@
+package com.distributedsystem.orders.timing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds the {@code Server-Timing} header right before a controller (or exception
+ * handler) body is serialized, since headers cannot be added once it is written.
+ */
+@RestControllerAdvice
+@RequiredArgsConstructor
+public class ServerTimingResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    private final ServerTimingSettings settings;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType,
+            ServerHttpRequest request, ServerHttpResponse response) {
+        RequestTimings timings = RequestTimings.current();
+        if (timings != null && settings.isHeaderEnabled()) {
+            response.getHeaders().set(ServerTimingFilter.SERVER_TIMING_HEADER, timings.toServerTiming());
+        }
+        return body;
+    }
+}
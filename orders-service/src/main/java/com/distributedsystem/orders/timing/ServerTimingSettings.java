@@ -0,0 +1,27 @@
+package com.distributedsystem.orders.timing;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Request timing switches. Start from {@code server-timing.*} and can be changed
+ * at runtime through the {@code servertiming} actuator endpoint.
+ */
+@Component
+@Getter
+@Setter
+public class ServerTimingSettings {
+
+    @Value("${server-timing.enabled:true}")
+    private volatile boolean enabled;
+
+    @Value("${server-timing.header-enabled:true}")
+    private volatile boolean headerEnabled;
+
+    @Value("${server-timing.slow-threshold:PT1S}")
+    private volatile Duration slowThreshold;
+}
@@ -0,0 +1,7 @@
+-- Indexes JPA annotations cannot express. Runs after schema update on every start.
+--
+-- At most one pending confirmation per order: two payments for the same order
+-- queued at once would both pass the NOT EXISTS check of the enqueue INSERT, so
+-- the second one is turned away by this index instead (ON CONFLICT DO NOTHING).
+CREATE UNIQUE INDEX IF NOT EXISTS uk_payment_confirmations_pending_order
+    ON payment_confirmations (order_id) WHERE status = 'PENDING';
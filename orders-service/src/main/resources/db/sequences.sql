@@ -0,0 +1,25 @@
+-- Ids are allocated from pooled sequences (50 ids per round-trip) instead of
+-- IDENTITY columns so Hibernate can batch inserts. Hibernate creates the
+-- sequences; this script runs right after schema update on every start and moves
+-- each sequence past the ids already in use.
+--
+-- The sequences are only moved with nextval, never setval: nextval is atomic and
+-- can only go forward, so the script is safe to run while other instances are
+-- allocating from the same sequence (a read-then-setval could move it backwards
+-- under them). Each statement calls nextval just enough times that the next block
+-- handed out starts above MAX(id); once a sequence is ahead it calls it zero times.
+SELECT COUNT(nextval('orders_seq')) FROM generate_series(1, (
+    SELECT CASE WHEN t.max_id < s.last_value THEN 0
+                ELSE (t.max_id - s.last_value) / p.increment_by + CASE WHEN s.is_called THEN 0 ELSE 1 END END
+    FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM orders) t, orders_seq s, pg_sequences p
+    WHERE p.sequencename = 'orders_seq'));
+SELECT COUNT(nextval('order_items_seq')) FROM generate_series(1, (
+    SELECT CASE WHEN t.max_id < s.last_value THEN 0
+                ELSE (t.max_id - s.last_value) / p.increment_by + CASE WHEN s.is_called THEN 0 ELSE 1 END END
+    FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM order_items) t, order_items_seq s, pg_sequences p
+    WHERE p.sequencename = 'order_items_seq'));
+SELECT COUNT(nextval('notification_outbox_seq')) FROM generate_series(1, (
+    SELECT CASE WHEN t.max_id < s.last_value THEN 0
+                ELSE (t.max_id - s.last_value) / p.increment_by + CASE WHEN s.is_called THEN 0 ELSE 1 END END
+    FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM notification_outbox) t, notification_outbox_seq s, pg_sequences p
+    WHERE p.sequencename = 'notification_outbox_seq'));
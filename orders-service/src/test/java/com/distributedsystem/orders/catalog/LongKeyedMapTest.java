@@ -0,0 +1,111 @@
+package com.distributedsystem.orders.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongKeyedMapTest {
+
+    @Test
+    void keyZeroIsStoredApartFromTheEmptySlotMarker() {
+        LongKeyedMap<String> map = new LongKeyedMap<>(4);
+        assertThat(map.get(0)).isNull();
+
+        map.put(0, "zero");
+        map.put(1, "one");
+        assertThat(map.get(0)).isEqualTo("zero");
+        assertThat(map.get(1)).isEqualTo("one");
+        assertThat(map.size()).isEqualTo(2);
+
+        map.put(0, "zero again");
+        assertThat(map.get(0)).isEqualTo("zero again");
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test
+    void keysInTheSameSlotAreProbedPastEachOther() {
+        // capacity 8 holds up to 4 keys before it grows
+        LongKeyedMap<Long> map = new LongKeyedMap<>(4);
+        long first = 1;
+        long second = nextKeyInSameSlot(first, 8);
+        long third = nextKeyInSameSlot(second, 8);
+
+        map.put(first, first);
+        map.put(second, second);
+        map.put(third, third);
+
+        assertThat(map.get(first)).isEqualTo(first);
+        assertThat(map.get(second)).isEqualTo(second);
+        assertThat(map.get(third)).isEqualTo(third);
+        assertThat(map.get(nextKeyInSameSlot(third, 8))).isNull();
+
+        map.put(second, -second);
+        assertThat(map.get(second)).isEqualTo(-second);
+        assertThat(map.size()).isEqualTo(3);
+    }
+
+    @Test
+    void growsPastTheLoadFactorWithoutLosingMappings() {
+        LongKeyedMap<Long> map = new LongKeyedMap<>(1);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            long key = i % 3 == 0 ? i : random.nextLong();
+            map.put(key, key * 31);
+            expected.put(key, key * 31);
+        }
+        map.put(Long.MIN_VALUE, 1L);
+        map.put(Long.MAX_VALUE, 2L);
+        expected.put(Long.MIN_VALUE, 1L);
+        expected.put(Long.MAX_VALUE, 2L);
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key)).as("key %d", key).isEqualTo(value));
+        assertThat(map.get(-1)).isNull();
+    }
+
+    @Test
+    void copyIsIndependentOfTheOriginal() {
+        LongKeyedMap<String> original = new LongKeyedMap<>(2);
+        original.put(0, "zero");
+        original.put(7, "seven");
+
+        LongKeyedMap<String> copy = original.copy();
+        copy.put(0, "changed zero");
+        copy.put(7, "changed seven");
+        for (long key = 100; key < 200; key++) {
+            copy.put(key, "added");
+        }
+        original.put(8, "eight");
+
+        assertThat(original.get(0)).isEqualTo("zero");
+        assertThat(original.get(7)).isEqualTo("seven");
+        assertThat(original.get(150)).isNull();
+        assertThat(original.size()).isEqualTo(3);
+
+        assertThat(copy.get(0)).isEqualTo("changed zero");
+        assertThat(copy.get(7)).isEqualTo("changed seven");
+        assertThat(copy.get(150)).isEqualTo("added");
+        assertThat(copy.get(8)).isNull();
+        assertThat(copy.size()).isEqualTo(102);
+    }
+
+    /** Same slot function as the map, for a table of {@code capacity} slots. */
+    private static long nextKeyInSameSlot(long key, int capacity) {
+        int slot = slot(key, capacity - 1);
+        for (long candidate = key + 1; ; candidate++) {
+            if (candidate != 0 && slot(candidate, capacity - 1) == slot) {
+                return candidate;
+            }
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
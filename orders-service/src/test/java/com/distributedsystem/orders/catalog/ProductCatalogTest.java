@@ -0,0 +1,173 @@
+package com.distributedsystem.orders.catalog;
+
+import com.distributedsystem.orders.config.ProductCatalogProperties;
+import com.distributedsystem.orders.dto.ProductDTO;
+import com.distributedsystem.orders.security.ServiceTokenProvider;
+import com.distributedsystem.orders.service.ProductServiceClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Catalog sync against a stubbed Products list endpoint: the first sync loads
+ * every page, later ones stop at the first product older than the newest change
+ * minus {@code overlap}, and lookups go live while the catalog is stale.
+ */
+class ProductCatalogTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+    private static final int PAGE_SIZE = 2;
+
+    private final ProductServiceClient client = mock(ProductServiceClient.class);
+    private final ServiceTokenProvider serviceTokens = mock(ServiceTokenProvider.class);
+    private final ProductCatalogProperties properties = new ProductCatalogProperties();
+
+    /** What the list endpoint returns, newest change first. */
+    private volatile List<ProductDTO> listing = List.of();
+    private volatile boolean productsDown;
+    private final List<Integer> pagesRequested = new CopyOnWriteArrayList<>();
+
+    private ProductCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        properties.setEnabled(true);
+        properties.setSyncInterval(Duration.ofMillis(20));
+        properties.setFullReloadInterval(Duration.ofMinutes(10));
+        properties.setMaxStaleness(Duration.ofMillis(300));
+        properties.setPageSize(PAGE_SIZE);
+        properties.setOverlap(Duration.ofSeconds(5));
+
+        when(serviceTokens.getToken()).thenReturn("service-token");
+        when(client.listProductsByLastUpdate(anyInt(), anyInt(), anyString())).thenAnswer(invocation -> {
+            if (productsDown) {
+                throw new IllegalStateException("Products is down");
+            }
+            int page = invocation.getArgument(0);
+            pagesRequested.add(page);
+            List<ProductDTO> products = listing.stream()
+                    .sorted(Comparator.comparing(ProductDTO::getUpdatedAt).reversed())
+                    .toList();
+            int from = Math.min((page - 1) * PAGE_SIZE, products.size());
+            return products.subList(from, Math.min(from + PAGE_SIZE, products.size()));
+        });
+        when(client.getProducts(anyCollection(), anyString())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            Map<Long, ProductDTO> live = new LinkedHashMap<>();
+            ids.forEach(id -> live.put(id, product(id, 99.0, T0)));
+            return live;
+        });
+
+        catalog = new ProductCatalog(properties, client, serviceTokens, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        catalog.stop();
+    }
+
+    @Test
+    void deltaSyncStopsAtTheFirstProductOlderThanTheOverlap() throws InterruptedException {
+        listing = List.of(
+                product(1L, 10.0, T0.plusSeconds(10)),
+                product(2L, 20.0, T0),
+                product(4L, 40.0, T0.plusSeconds(4)));
+        catalog.start();
+        awaitPrice(1L, 10.0);
+
+        listing = List.of(
+                product(1L, 11.0, T0.plusSeconds(20)),
+                // older than the last change seen (T0+10s) but within the 5s overlap
+                product(3L, 30.0, T0.plusSeconds(7)),
+                // changed without a newer updated_at, and older than T0+5s: not fetched
+                product(4L, 44.0, T0.plusSeconds(4)),
+                product(2L, 20.0, T0));
+        awaitPrice(1L, 11.0);
+        // lookups made while waiting for the first load went live
+        clearInvocations(client);
+
+        Map<Long, ProductDTO> products = catalog.getProducts(List.of(1L, 3L, 4L, 2L), "user-token");
+
+        assertThat(products).containsOnlyKeys(1L, 3L, 4L, 2L);
+        assertThat(products.get(3L).getPrice()).isEqualTo(30.0);
+        assertThat(products.get(4L).getPrice()).isEqualTo(40.0);
+        verify(client, never()).getProducts(anyCollection(), anyString());
+        // the full load ends on its short second page, the first delta at the cut-off on
+        // its second page, and later deltas on their first
+        assertThat(pagesRequested).containsOnly(1, 2);
+    }
+
+    @Test
+    void staleCatalogFallsBackToLiveLookups() throws InterruptedException {
+        productsDown = true;
+        catalog.start();
+
+        // nothing loaded yet
+        assertThat(catalog.getProducts(List.of(1L), "user-token").get(1L).getPrice()).isEqualTo(99.0);
+
+        listing = List.of(product(1L, 10.0, T0));
+        productsDown = false;
+        awaitPrice(1L, 10.0);
+
+        // a product the catalog does not know is looked up live, the rest stay local
+        Map<Long, ProductDTO> mixed = catalog.getProducts(List.of(5L, 1L), "user-token");
+        assertThat(mixed.keySet()).containsExactly(5L, 1L);
+        assertThat(mixed.get(1L).getPrice()).isEqualTo(10.0);
+        assertThat(mixed.get(5L).getPrice()).isEqualTo(99.0);
+        verify(client).getProducts(List.of(5L), "user-token");
+
+        productsDown = true;
+        await(() -> catalog.getProducts(List.of(1L), "user-token").get(1L).getPrice() == 99.0);
+
+        productsDown = false;
+        awaitPrice(1L, 10.0);
+    }
+
+    private void awaitPrice(long id, double price) throws InterruptedException {
+        await(() -> {
+            ProductDTO product = catalog.getProducts(List.of(id), "user-token").get(id);
+            return product != null && product.getPrice() == price;
+        });
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 10s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static ProductDTO product(Long id, double price, Instant updatedAt) {
+        return ProductDTO.builder()
+                .id(id)
+                .sku("SKU-" + id)
+                .name("Product " + id)
+                .price(price)
+                .stock(100)
+                .active(true)
+                .updatedAt(updatedAt)
+                .build();
+    }
+}
@@ -0,0 +1,163 @@
+package com.distributedsystem.orders.flashsale;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reservations from many threads never sell more than was put in, lose no
+ * units and leave no stripe below zero.
+ */
+class StripedStockCounterTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    void resetSpreadsTheRemainderOverTheFirstStripes() {
+        StripedStockCounter counter = new StripedStockCounter(4);
+
+        counter.reset(10);
+        assertThat(counter.stripeUnits()).containsExactly(3, 3, 2, 2);
+        assertThat(counter.available()).isEqualTo(10);
+
+        counter.reset(3);
+        assertThat(counter.stripeUnits()).containsExactly(1, 1, 1, 0);
+
+        counter.reset(-5);
+        assertThat(counter.stripeUnits()).containsOnly(0);
+        assertThat(counter.tryReserve(1)).isFalse();
+    }
+
+    @Test
+    void reservationLargerThanAnyStripeIsTakenAcrossStripesOrNotAtAll() {
+        StripedStockCounter counter = new StripedStockCounter(4);
+        counter.reset(8);
+
+        assertThat(counter.tryReserve(5)).isTrue();
+        assertThat(counter.available()).isEqualTo(3);
+
+        assertThat(counter.tryReserve(4)).isFalse();
+        assertThat(counter.available()).isEqualTo(3);
+        assertNoStripeBelowZero(counter);
+    }
+
+    @Test
+    void concurrentMultiUnitReservationsTakeWholeAmountsOnly() throws Exception {
+        StripedStockCounter counter = new StripedStockCounter(16);
+        int units = 7;
+        long initial = 10_000;
+        counter.reset(initial);
+        LongAdder reserved = new LongAdder();
+
+        runOnThreads(() -> {
+            for (int i = 0; i < 5_000; i++) {
+                if (counter.tryReserve(units)) {
+                    reserved.add(units);
+                }
+            }
+        });
+
+        assertThat(reserved.sum() + counter.available()).isEqualTo(initial);
+        assertNoStripeBelowZero(counter);
+        // racing gathers may give up while enough is left; alone, one always succeeds
+        while (counter.tryReserve(units)) {
+            reserved.add(units);
+        }
+        assertThat(counter.available()).isEqualTo(initial % units);
+    }
+
+    @Test
+    void neverSellsMoreThanTheStockUnderContention() throws Exception {
+        StripedStockCounter counter = new StripedStockCounter(16);
+        long initial = 50_000;
+        counter.reset(initial);
+        LongAdder reserved = new LongAdder();
+
+        runOnThreads(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (true) {
+                int units = 1 + random.nextInt(4);
+                if (counter.tryReserve(units)) {
+                    reserved.add(units);
+                } else if (counter.tryReserve(1)) {
+                    reserved.add(1);
+                } else {
+                    return;
+                }
+                if (random.nextInt(10) == 0) {
+                    counter.release(1);
+                    reserved.add(-1);
+                }
+            }
+        });
+
+        // a unit released after the last reservation of another thread may be left over
+        assertThat(reserved.sum() + counter.available()).isEqualTo(initial);
+        assertNoStripeBelowZero(counter);
+        assertThat(counter.available()).isLessThanOrEqualTo(THREADS);
+    }
+
+    @Test
+    void releaseRacingWithASoldOutScanIsNotHiddenByTheFlag() throws Exception {
+        StripedStockCounter counter = new StripedStockCounter(4);
+        counter.reset(0);
+        CyclicBarrier start = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 5_000; round++) {
+                Future<Boolean> reserve = executor.submit(() -> {
+                    start.await();
+                    return counter.tryReserve(1);
+                });
+                Future<?> release = executor.submit(() -> {
+                    start.await();
+                    counter.release(1);
+                    return null;
+                });
+                release.get(10, TimeUnit.SECONDS);
+                if (!reserve.get(10, TimeUnit.SECONDS)) {
+                    // the released unit must still be reservable once both calls returned
+                    assertThat(counter.tryReserve(1)).as("round %d", round).isTrue();
+                }
+                assertThat(counter.available()).isZero();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void assertNoStripeBelowZero(StripedStockCounter counter) {
+        assertThat(Arrays.stream(counter.stripeUnits()).min().orElseThrow()).isNotNegative();
+    }
+
+    private static void runOnThreads(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.distributedsystem.orders.service;
+
+import com.distributedsystem.orders.dto.CreateOrderRequest;
+import com.distributedsystem.orders.dto.OrderDTO;
+import com.distributedsystem.orders.dto.OrderItemDTO;
+import com.distributedsystem.orders.dto.ProductDTO;
+import com.distributedsystem.orders.exception.IdempotencyKeyReusedException;
+import com.distributedsystem.orders.security.UserPrincipal;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Orders created through an {@code Idempotency-Key}: a retry replays the stored
+ * order, the same key with another body is refused, and concurrent duplicates
+ * create a single order.
+ */
+@SpringBootTest(properties = {
+        "logging.level.org.hibernate.SQL=WARN",
+        "notifications.outbox.poll-interval-ms=3600000",
+        "orders.payment.async.stats-interval-ms=3600000"
+})
+class IdempotencyServiceTest {
+
+    private static final String USER_ID = "idempotency-user";
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @MockBean
+    private ProductServiceClient productServiceClient;
+
+    private final UserPrincipal user = UserPrincipal.builder()
+            .userId(USER_ID)
+            .email(USER_ID + "@example.com")
+            .role("cliente")
+            .build();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void stubProducts() {
+        when(productServiceClient.getProducts(anyCollection(), anyString())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            Map<Long, ProductDTO> products = new LinkedHashMap<>();
+            ids.forEach(id -> products.put(id, ProductDTO.builder()
+                    .id(id)
+                    .sku("SKU-" + id)
+                    .name("Product " + id)
+                    .price(10.0)
+                    .stock(100)
+                    .active(true)
+                    .build()));
+            return products;
+        });
+    }
+
+    @Test
+    void retryReplaysTheStoredOrder() {
+        String key = UUID.randomUUID().toString();
+        CreateOrderRequest request = request(1L, 2);
+        long before = countOrders();
+
+        IdempotentResult<OrderDTO> first = createOrder(key, request);
+        IdempotentResult<OrderDTO> retry = createOrder(key, request(1L, 2));
+
+        assertThat(first.replayed()).isFalse();
+        assertThat(retry.replayed()).isTrue();
+        assertThat(retry.value().getId()).isEqualTo(first.value().getId());
+        assertThat(retry.value().getTotalAmount()).isEqualByComparingTo(first.value().getTotalAmount());
+        assertThat(countOrders()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void keyReusedWithAnotherBodyIsRefused() {
+        String key = UUID.randomUUID().toString();
+        createOrder(key, request(1L, 2));
+        long before = countOrders();
+
+        assertThatThrownBy(() -> createOrder(key, request(1L, 3)))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+        assertThat(countOrders()).isEqualTo(before);
+    }
+
+    @Test
+    void concurrentDuplicatesCreateOneOrder() throws Exception {
+        int duplicates = 6;
+        String key = UUID.randomUUID().toString();
+        long before = countOrders();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CyclicBarrier start = new CyclicBarrier(duplicates);
+
+        ExecutorService executor = Executors.newFixedThreadPool(duplicates);
+        List<Future<IdempotentResult<OrderDTO>>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < duplicates; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    CreateOrderRequest request = request(2L, 1);
+                    return idempotencyService.execute(key, USER_ID, request, OrderDTO.class, () -> {
+                        executions.incrementAndGet();
+                        awaitQuietly(release);
+                        return orderService.createOrder(request, user, "user-token");
+                    });
+                }));
+            }
+            // the first execution holds the key until the duplicates are waiting on it
+            Thread.sleep(500);
+            release.countDown();
+
+            List<IdempotentResult<OrderDTO>> results = new ArrayList<>();
+            for (Future<IdempotentResult<OrderDTO>> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+
+            assertThat(executions).hasValue(1);
+            assertThat(results).filteredOn(result -> !result.replayed()).hasSize(1);
+            assertThat(results).extracting(result -> result.value().getId()).containsOnly(results.get(0).value().getId());
+            assertThat(countOrders()).isEqualTo(before + 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private IdempotentResult<OrderDTO> createOrder(String key, CreateOrderRequest request) {
+        return idempotencyService.execute(key, USER_ID, request, OrderDTO.class,
+                () -> orderService.createOrder(request, user, "user-token"));
+    }
+
+    private long countOrders() {
+        return orderService.getUserOrders(user, null, PageRequest.of(0, 1)).getTotalElements();
+    }
+
+    private static CreateOrderRequest request(Long productId, int quantity) {
+        return CreateOrderRequest.builder()
+                .items(List.of(OrderItemDTO.builder().productId(productId).quantity(quantity).build()))
+                .build();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
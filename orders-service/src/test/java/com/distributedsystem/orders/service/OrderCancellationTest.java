@@ -0,0 +1,239 @@
+package com.distributedsystem.orders.service;
+
+import com.distributedsystem.orders.dto.OrderDTO;
+import com.distributedsystem.orders.dto.StockUpdateItem;
+import com.distributedsystem.orders.dto.UpdateOrderStatusRequest;
+import com.distributedsystem.orders.model.Order;
+import com.distributedsystem.orders.model.OrderItem;
+import com.distributedsystem.orders.model.OrderStatus;
+import com.distributedsystem.orders.repository.OrderRepository;
+import com.distributedsystem.orders.security.UserPrincipal;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Status changes are conditional UPDATEs: of a cancel and an admin update racing
+ * on the same order, the admin update never lands on a cancelled order, and stock
+ * is given back once, and only for orders that were paid.
+ */
+@SpringBootTest(properties = {
+        "logging.level.org.hibernate.SQL=WARN",
+        "notifications.outbox.poll-interval-ms=3600000",
+        "orders.payment.async.stats-interval-ms=3600000"
+})
+class OrderCancellationTest {
+
+    private static final String USER_ID = "cancel-user";
+    private static final int QUANTITY = 2;
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @MockBean
+    private ProductServiceClient productServiceClient;
+
+    /** Units given back to each product by update-stock requests. */
+    private final Map<Long, AtomicLong> stockRestored = new ConcurrentHashMap<>();
+
+    private final UserPrincipal user = UserPrincipal.builder()
+            .userId(USER_ID)
+            .email(USER_ID + "@example.com")
+            .role("cliente")
+            .build();
+
+    private final UserPrincipal admin = UserPrincipal.builder()
+            .userId("cancel-admin")
+            .email("cancel-admin@example.com")
+            .role("admin")
+            .build();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void stubProducts() {
+        doAnswer(invocation -> {
+            List<StockUpdateItem> items = invocation.getArgument(0);
+            items.forEach(item -> stockRestored.computeIfAbsent(item.getId(), id -> new AtomicLong())
+                    .addAndGet(item.getQuantity()));
+            return null;
+        }).when(productServiceClient).updateStock(anyList(), any());
+    }
+
+    @Test
+    void cancellingAnUnpaidOrderRestoresNoStock() {
+        Order order = createOrder(201L, OrderStatus.CREADO);
+
+        OrderDTO cancelled = orderService.cancelOrder(order.getId(), user);
+
+        assertThat(cancelled.getStatus()).isEqualTo(OrderStatus.CANCELADO);
+        assertThat(unitsRestored(201L)).isZero();
+    }
+
+    @Test
+    void cancellingAPaidOrderRestoresItsStockOnce() {
+        Order order = createOrder(202L, OrderStatus.PAGADO);
+
+        OrderDTO cancelled = orderService.cancelOrder(order.getId(), user);
+        assertThatThrownBy(() -> orderService.cancelOrder(order.getId(), user))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(cancelled.getStatus()).isEqualTo(OrderStatus.CANCELADO);
+        assertThat(unitsRestored(202L)).isEqualTo(QUANTITY);
+    }
+
+    @Test
+    void concurrentCancelsRestoreStockOnce() throws Exception {
+        Order order = createOrder(203L, OrderStatus.PAGADO);
+
+        Outcome outcome = race(
+                () -> orderService.cancelOrder(order.getId(), user),
+                () -> orderService.cancelOrder(order.getId(), admin));
+
+        assertThat(outcome.succeeded()).isEqualTo(1);
+        assertThat(outcome.first() != null ? outcome.first() : outcome.second())
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(unitsRestored(203L)).isEqualTo(QUANTITY);
+    }
+
+    @Test
+    void adminUpdateAfterACancelIsRejected() {
+        Order order = createOrder(204L, OrderStatus.PAGADO);
+        orderService.cancelOrder(order.getId(), user);
+
+        assertThatThrownBy(() -> orderService.updateOrderStatus(order.getId(),
+                new UpdateOrderStatusRequest(OrderStatus.SHIPPED), admin))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(orderRepository.findById(order.getId()).orElseThrow().getStatus())
+                .isEqualTo(OrderStatus.CANCELADO);
+    }
+
+    @Test
+    void adminUpdateRacingACancelNeverLandsOnTheCancelledOrder() throws Exception {
+        int rounds = 20;
+        for (int round = 0; round < rounds; round++) {
+            long productId = 300L + round;
+            Order order = createOrder(productId, OrderStatus.PAGADO);
+            Callable<?> cancel = () -> orderService.cancelOrder(order.getId(), user);
+            Callable<?> ship = () -> orderService.updateOrderStatus(order.getId(),
+                    new UpdateOrderStatusRequest(OrderStatus.SHIPPED), admin);
+
+            // alternate which one is started first
+            Outcome outcome = round % 2 == 0 ? race(cancel, ship) : race(ship, cancel).swapped();
+
+            // the cancel goes through either way: shipped orders can still be cancelled
+            assertThat(outcome.first()).as("round %d", round).isNull();
+            if (outcome.second() != null) {
+                // the cancel committed first, so the update matched no row
+                assertThat(outcome.second()).as("round %d", round).isInstanceOf(IllegalStateException.class);
+            }
+            assertThat(orderRepository.findById(order.getId()).orElseThrow().getStatus())
+                    .as("round %d", round).isEqualTo(OrderStatus.CANCELADO);
+            assertThat(unitsRestored(productId)).as("round %d", round).isEqualTo(QUANTITY);
+        }
+    }
+
+    /** Runs both calls at once; each outcome is null on success or what it threw. */
+    private static Outcome race(Callable<?> first, Callable<?> second) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> firstResult = executor.submit(() -> {
+                start.await();
+                return first.call();
+            });
+            Future<?> secondResult = executor.submit(() -> {
+                start.await();
+                return second.call();
+            });
+            return new Outcome(failureOf(firstResult), failureOf(secondResult));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Throwable failureOf(Future<?> result) throws Exception {
+        try {
+            result.get(30, TimeUnit.SECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    private record Outcome(Throwable first, Throwable second) {
+
+        Outcome swapped() {
+            return new Outcome(second, first);
+        }
+
+        int succeeded() {
+            return (first == null ? 1 : 0) + (second == null ? 1 : 0);
+        }
+    }
+
+    private Order createOrder(Long productId, OrderStatus status) {
+        Order order = Order.builder()
+                .userId(USER_ID)
+                .userEmail(user.getEmail())
+                .status(status)
+                .build();
+        order.addItem(OrderItem.builder()
+                .productId(productId)
+                .productSku("SKU-" + productId)
+                .productName("Product " + productId)
+                .quantity(QUANTITY)
+                .unitPrice(BigDecimal.TEN)
+                .subtotal(BigDecimal.TEN.multiply(BigDecimal.valueOf(QUANTITY)))
+                .build());
+        order.calculateTotalAmount();
+        return orderRepository.save(order);
+    }
+
+    private long unitsRestored(Long productId) {
+        AtomicLong units = stockRestored.get(productId);
+        return units == null ? 0 : units.get();
+    }
+}
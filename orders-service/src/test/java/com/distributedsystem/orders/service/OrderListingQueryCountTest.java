@@ -0,0 +1,139 @@
+package com.distributedsystem.orders.service;
+
+import com.distributedsystem.orders.dto.CursorPage;
+import com.distributedsystem.orders.dto.OrderDTO;
+import com.distributedsystem.orders.model.Order;
+import com.distributedsystem.orders.model.OrderItem;
+import com.distributedsystem.orders.repository.OrderRepository;
+import com.distributedsystem.orders.security.UserPrincipal;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A page of orders is read with one query for the orders and one for all of
+ * their items, however many orders the page holds.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.SQL=WARN",
+        // keep the background jobs from issuing statements while queries are counted
+        "notifications.outbox.poll-interval-ms=3600000",
+        "orders.payment.async.stats-interval-ms=3600000"
+})
+class OrderListingQueryCountTest {
+
+    private static final String USER_ID = "query-count-user";
+    private static final int ORDERS = 30;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final UserPrincipal user = UserPrincipal.builder()
+            .userId(USER_ID)
+            .email(USER_ID + "@example.com")
+            .role("cliente")
+            .build();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void createOrders() {
+        if (orderRepository.count() > 0) {
+            return;
+        }
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = Order.builder()
+                    .userId(USER_ID)
+                    .userEmail(user.getEmail())
+                    .build();
+            for (int j = 1; j <= ITEMS_PER_ORDER; j++) {
+                order.addItem(OrderItem.builder()
+                        .productId((long) j)
+                        .productSku("SKU-" + j)
+                        .productName("Product " + j)
+                        .quantity(1)
+                        .unitPrice(BigDecimal.TEN)
+                        .subtotal(BigDecimal.TEN)
+                        .build());
+            }
+            order.calculateTotalAmount();
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+    }
+
+    @Test
+    void cursorPagesTakeTwoQueriesEach() {
+        Statistics statistics = statistics();
+
+        CursorPage<OrderDTO> first = orderService.getUserOrdersByCursor(user, null, null, 20);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(first.getContent()).hasSize(20)
+                .allSatisfy(order -> assertThat(order.getItems()).hasSize(ITEMS_PER_ORDER));
+
+        statistics.clear();
+        CursorPage<OrderDTO> second = orderService.getUserOrdersByCursor(user, null, first.getNextCursor(), 20);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(second.getContent()).hasSize(ORDERS - 20)
+                .allSatisfy(order -> assertThat(order.getItems()).hasSize(ITEMS_PER_ORDER));
+    }
+
+    @Test
+    void offsetPagesAddOnlyTheCountQuery() {
+        Statistics statistics = statistics();
+
+        Page<OrderDTO> page = orderService.getUserOrders(user, null,
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt")));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(page.getTotalElements()).isEqualTo(ORDERS);
+        assertThat(page.getContent()).hasSize(20)
+                .allSatisfy(order -> assertThat(order.getItems()).hasSize(ITEMS_PER_ORDER));
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
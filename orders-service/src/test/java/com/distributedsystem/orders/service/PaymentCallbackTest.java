@@ -0,0 +1,205 @@
+package com.distributedsystem.orders.service;
+
+import com.distributedsystem.orders.dto.OrderDTO;
+import com.distributedsystem.orders.dto.PaymentCallbackRequest;
+import com.distributedsystem.orders.dto.StockUpdateItem;
+import com.distributedsystem.orders.exception.ConcurrentOrderUpdateException;
+import com.distributedsystem.orders.exception.PaymentInProgressException;
+import com.distributedsystem.orders.model.Order;
+import com.distributedsystem.orders.model.OrderItem;
+import com.distributedsystem.orders.model.OrderStatus;
+import com.distributedsystem.orders.repository.OrderRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Payment callbacks against a mocked Products update-stock endpoint: however
+ * often a payment is delivered, its order's stock is reduced once, and retries
+ * that arrive while the first delivery holds the claim are told to come back.
+ */
+@SpringBootTest(properties = {
+        "logging.level.org.hibernate.SQL=WARN",
+        "notifications.outbox.poll-interval-ms=3600000",
+        "orders.payment.async.stats-interval-ms=3600000"
+})
+class PaymentCallbackTest {
+
+    private static final int QUANTITY = 3;
+    private static final BigDecimal UNIT_PRICE = new BigDecimal("10.00");
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @MockBean
+    private ProductServiceClient productServiceClient;
+
+    /** Units taken off each product by update-stock requests. */
+    private final Map<Long, AtomicLong> stockReduced = new ConcurrentHashMap<>();
+    private volatile CountDownLatch updateStarted = new CountDownLatch(1);
+    private volatile CountDownLatch releaseUpdate = new CountDownLatch(0);
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void stubProducts() {
+        doAnswer(invocation -> {
+            List<StockUpdateItem> items = invocation.getArgument(0);
+            updateStarted.countDown();
+            releaseUpdate.await(10, TimeUnit.SECONDS);
+            items.forEach(item -> stockReduced.computeIfAbsent(item.getId(), id -> new AtomicLong())
+                    .addAndGet(-item.getQuantity()));
+            return null;
+        }).when(productServiceClient).updateStock(anyList(), any());
+    }
+
+    @Test
+    void retriedCallbackReducesStockOnce() {
+        Order order = createOrder(101L);
+        PaymentCallbackRequest callback = callback("pay-retried", order);
+
+        OrderDTO paid = orderService.handlePaymentCallback(order.getId(), callback);
+        OrderDTO retried = orderService.handlePaymentCallback(order.getId(), callback);
+
+        assertThat(paid.getStatus()).isEqualTo(OrderStatus.PAGADO);
+        assertThat(retried.getId()).isEqualTo(order.getId());
+        assertThat(retried.getStatus()).isEqualTo(OrderStatus.PAGADO);
+        assertThat(unitsReduced(101L)).isEqualTo(QUANTITY);
+    }
+
+    @Test
+    void concurrentDeliveriesReduceStockOnce() throws Exception {
+        int deliveries = 6;
+        Order order = createOrder(102L);
+        PaymentCallbackRequest callback = callback("pay-concurrent", order);
+        CyclicBarrier start = new CyclicBarrier(deliveries);
+
+        ExecutorService executor = Executors.newFixedThreadPool(deliveries);
+        try {
+            List<Future<OrderDTO>> futures = new ArrayList<>();
+            for (int i = 0; i < deliveries; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return orderService.handlePaymentCallback(order.getId(), callback);
+                }));
+            }
+
+            for (Future<OrderDTO> future : futures) {
+                try {
+                    assertThat(future.get(30, TimeUnit.SECONDS).getStatus()).isEqualTo(OrderStatus.PAGADO);
+                } catch (ExecutionException e) {
+                    // arrived while another delivery held the claim
+                    assertThat(e.getCause()).isInstanceOf(PaymentInProgressException.class);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(unitsReduced(102L)).isEqualTo(QUANTITY);
+        assertThat(orderRepository.findById(order.getId()).orElseThrow().getStatus()).isEqualTo(OrderStatus.PAGADO);
+    }
+
+    @Test
+    void retryWhileTheClaimIsHeldIsToldToComeBack() throws Exception {
+        Order order = createOrder(103L);
+        PaymentCallbackRequest callback = callback("pay-held", order);
+        updateStarted = new CountDownLatch(1);
+        releaseUpdate = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<OrderDTO> first = executor.submit(() -> orderService.handlePaymentCallback(order.getId(), callback));
+            assertThat(updateStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> orderService.handlePaymentCallback(order.getId(), callback))
+                    .isInstanceOf(PaymentInProgressException.class);
+            assertThatThrownBy(() -> orderService.handlePaymentCallback(order.getId(),
+                    callback("pay-other", order)))
+                    .isInstanceOf(ConcurrentOrderUpdateException.class);
+
+            releaseUpdate.countDown();
+            assertThat(first.get(30, TimeUnit.SECONDS).getStatus()).isEqualTo(OrderStatus.PAGADO);
+        } finally {
+            releaseUpdate.countDown();
+            executor.shutdownNow();
+        }
+
+        assertThat(orderService.handlePaymentCallback(order.getId(), callback).getStatus())
+                .isEqualTo(OrderStatus.PAGADO);
+        assertThat(unitsReduced(103L)).isEqualTo(QUANTITY);
+    }
+
+    private Order createOrder(Long productId) {
+        Order order = Order.builder()
+                .userId("payment-user")
+                .userEmail("payment-user@example.com")
+                .build();
+        order.addItem(OrderItem.builder()
+                .productId(productId)
+                .productSku("SKU-" + productId)
+                .productName("Product " + productId)
+                .quantity(QUANTITY)
+                .unitPrice(UNIT_PRICE)
+                .subtotal(UNIT_PRICE.multiply(BigDecimal.valueOf(QUANTITY)))
+                .build());
+        order.calculateTotalAmount();
+        return orderRepository.save(order);
+    }
+
+    private static PaymentCallbackRequest callback(String paymentId, Order order) {
+        return PaymentCallbackRequest.builder()
+                .paymentId(paymentId)
+                .status("completed")
+                .amount(order.getTotalAmount().doubleValue())
+                .build();
+    }
+
+    private long unitsReduced(Long productId) {
+        AtomicLong units = stockReduced.get(productId);
+        return units == null ? 0 : units.get();
+    }
+}